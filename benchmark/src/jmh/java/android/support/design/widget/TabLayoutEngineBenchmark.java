@@ -0,0 +1,101 @@
+package android.support.design.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tab geometry hot paths of SlidingTabStripLayout, run with {@code ./gradlew :benchmark:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TabLayoutEngineBenchmark {
+    private static final int VIEWPORT_WIDTH = 1080;
+    private static final int GUTTER = 48;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int tabCount;
+
+    private int[] mWidths;
+    private int[] mScratchWidths;
+    private int[] mOffsets;
+    private TabOffsetIndex mIndex;
+    private int mContentWidth;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        this.mWidths = new int[this.tabCount];
+        this.mScratchWidths = new int[this.tabCount];
+        this.mOffsets = new int[this.tabCount + 1];
+        this.mIndex = new TabOffsetIndex();
+        this.mIndex.reset(this.tabCount);
+
+        for (int i = 0; i < this.tabCount; ++i) {
+            this.mWidths[i] = 160 + random.nextInt(240);
+            this.mIndex.setWidth(i, this.mWidths[i]);
+        }
+
+        this.mContentWidth = TabLayoutEngine.prefixSums(this.mWidths, this.mOffsets, 0, this.tabCount, 0);
+    }
+
+    // A measure pass that knows no tab positions yet
+    @Benchmark
+    public int prefixSumsFull() {
+        return TabLayoutEngine.prefixSums(this.mWidths, this.mOffsets, 0, this.tabCount, 0);
+    }
+
+    // One tab changes its title in the middle of the strip and the next lookup pays for the rebuild
+    @Benchmark
+    public int offsetIndexIncrementalUpdate() {
+        int position = this.tabCount / 2;
+        this.mIndex.setWidth(position, this.mWidths[position] + (++this.mFrame & 1));
+        return this.mIndex.getEnd();
+    }
+
+    // A touch or a scroll position mapped back to a tab
+    @Benchmark
+    public int findPosition() {
+        this.mFrame = (this.mFrame + 7919) % this.mContentWidth;
+        return TabLayoutEngine.findPosition(this.mOffsets, this.tabCount, this.mFrame);
+    }
+
+    // The indicator and scroll math of one onPageScrolled frame
+    @Benchmark
+    public void pagerFrame(Blackhole blackhole) {
+        ++this.mFrame;
+        int position = this.mFrame % (this.tabCount - 1);
+        float offset = (float) (this.mFrame & 63) / 64.0F;
+        blackhole.consume(TabLayoutEngine.indicatorEdge(this.mOffsets[position], this.mOffsets[position + 1], offset));
+        blackhole.consume(TabLayoutEngine.indicatorEdge(this.mOffsets[position + 1], this.mOffsets[position + 2], offset));
+        float center = TabLayoutEngine.tabCenter(this.mOffsets[position], this.mWidths[position], this.mWidths[position + 1], offset);
+        blackhole.consume(TabLayoutEngine.centeredScrollX(center, VIEWPORT_WIDTH));
+    }
+
+    // MODE_FIXED with GRAVITY_CENTER, falling back to fill when the tabs do not fit
+    @Benchmark
+    public int fixedModeBalancing() {
+        System.arraycopy(this.mWidths, 0, this.mScratchWidths, 0, this.tabCount);
+        int tabWidth = TabLayoutEngine.centeredTabWidth(this.mScratchWidths, this.tabCount, VIEWPORT_WIDTH, GUTTER);
+        return TabLayoutEngine.distributeFixedWidths(this.mScratchWidths, this.tabCount, VIEWPORT_WIDTH, tabWidth);
+    }
+
+    @Benchmark
+    public void clampTabWidths(Blackhole blackhole) {
+        for (int i = 0; i < this.tabCount; ++i) {
+            blackhole.consume(TabLayoutEngine.clampedTabWidth(this.mWidths[i], 180, 264));
+        }
+
+    }
+}
@@ -0,0 +1,91 @@
+package android.support.design.widget;
+
+/**
+ * A damped spring of unit mass pulling a single value towards a target, integrated with
+ * semi-implicit Euler in fixed sub steps so that long frames stay stable.
+ * <p>
+ * Retargeting keeps the current value and velocity, so an interrupted motion carries its momentum
+ * into the new one instead of restarting. Plain Java, no framework types, the caller drives it
+ * with the elapsed time of each frame.
+ */
+final class IndicatorSpring {
+
+    static final float DEFAULT_STIFFNESS = 700.0F;
+    static final float DEFAULT_DAMPING_RATIO = 0.9F;
+
+    // Sub step length in seconds, well under the period of any stiffness we use
+    private static final float MAX_STEP = 1.0F / 240.0F;
+    // Frames longer than this, e.g. after a stall, are treated as this long
+    private static final float MAX_FRAME = 1.0F / 15.0F;
+
+    private float mStiffness;
+    private float mDamping;
+    private float mValue;
+    private float mVelocity;
+    private float mTarget;
+
+    IndicatorSpring() {
+        this(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+    }
+
+    IndicatorSpring(float stiffness, float dampingRatio) {
+        this.setParameters(stiffness, dampingRatio);
+    }
+
+    void setParameters(float stiffness, float dampingRatio) {
+        if (stiffness <= 0.0F) {
+            throw new IllegalArgumentException("Spring stiffness must be positive");
+        } else if (dampingRatio < 0.0F) {
+            throw new IllegalArgumentException("Spring damping ratio must not be negative");
+        } else {
+            this.mStiffness = stiffness;
+            this.mDamping = 2.0F * dampingRatio * (float) Math.sqrt((double) stiffness);
+        }
+    }
+
+    float getValue() {
+        return this.mValue;
+    }
+
+    float getVelocity() {
+        return this.mVelocity;
+    }
+
+    float getTarget() {
+        return this.mTarget;
+    }
+
+    // Moves the target only, the value and the velocity carry on from where they are
+    void setTarget(float target) {
+        this.mTarget = target;
+    }
+
+    // Jumps to value and stops there
+    void snapTo(float value) {
+        this.mValue = value;
+        this.mTarget = value;
+        this.mVelocity = 0.0F;
+    }
+
+    void setState(float value, float velocity) {
+        this.mValue = value;
+        this.mVelocity = velocity;
+    }
+
+    void step(float seconds) {
+        float remaining = Math.min(Math.max(0.0F, seconds), MAX_FRAME);
+
+        while (remaining > 0.0F) {
+            float h = Math.min(remaining, MAX_STEP);
+            float acceleration = -this.mStiffness * (this.mValue - this.mTarget) - this.mDamping * this.mVelocity;
+            this.mVelocity += acceleration * h;
+            this.mValue += this.mVelocity * h;
+            remaining -= h;
+        }
+
+    }
+
+    boolean isAtRest(float valueThreshold, float velocityThreshold) {
+        return Math.abs(this.mValue - this.mTarget) <= valueThreshold && Math.abs(this.mVelocity) <= velocityThreshold;
+    }
+}
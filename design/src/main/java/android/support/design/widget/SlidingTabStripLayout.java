@@ -3,28 +3,49 @@ package android.support.design.widget;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
-import android.content.res.TypedArray;
+import android.database.DataSetObserver;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.design.widget.ValueAnimatorCompat.AnimatorListenerAdapter;
 import android.support.design.widget.ValueAnimatorCompat.AnimatorUpdateListener;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.os.TraceCompat;
+import android.support.v4.view.AsyncLayoutInflater;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.support.v4.view.ViewPager.OnPageChangeListener;
+import android.support.v4.view.ViewPropertyAnimatorListener;
+import android.support.v4.view.ViewPropertyAnimatorListenerAdapter;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.support.v7.widget.AppCompatTextView;
+import android.text.TextPaint;
 import android.text.TextUtils;
 import android.text.TextUtils.TruncateAt;
+import android.text.method.TransformationMethod;
 import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
-import android.view.animation.Animation;
 import android.widget.HorizontalScrollView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -34,8 +55,13 @@ import android.widget.Toast;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * This class is a custom design of the same class found in the android.support.design library. I decided to use it
@@ -62,6 +88,9 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
     private static final int FIXED_WRAP_GUTTER_MIN = 16;
     private static final int MOTION_NON_ADJACENT_OFFSET = 24;
     private static final int ANIMATION_DURATION = 300;
+    static final int VIRTUAL_TAB_MARGIN = 2;
+    private static final float DEFAULT_INDICATOR_REDRAW_THRESHOLD = 0.25F;
+    public static final float DEFAULT_PREFETCH_OFFSET_THRESHOLD = 0.3F;
     public static final int MODE_SCROLLABLE = 0;
     public static final int MODE_FIXED = 1;
     public static final int GRAVITY_FILL = 0;
@@ -76,6 +105,8 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
     private int mTabTextAppearance;
     private int mTabSelectedTextAppearance;
     private boolean isTabSelectedTextBold;
+    private TabTextAppearance mResolvedTabTextAppearance;
+    private TabTextAppearance mResolvedTabSelectedTextAppearance;
     private ColorStateList mTabTextColors;
     private final int mTabBackgroundResId;
     private final int mTabMinWidth;
@@ -84,9 +115,68 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
     private int mContentInsetStart;
     private int mTabGravity;
     private int mMode;
+    private boolean mTabViewVirtualizationEnabled;
+    private boolean mFlatRenderingEnabled;
+    private boolean mIndicatorLayerEnabled;
+    private boolean mIndicatorSpringEnabled;
+    private boolean mAsyncCustomViewInflationEnabled;
+    private SlidingTabStripLayout.TabStripMetrics mTabStripMetrics;
+    private ValueAnimatorCompat mScrollAnimator;
+    private int mScrollAnimatorStartX;
+    private int mScrollAnimatorTargetX;
+    // Scroll offset brought back by onRestoreInstanceState, applied by the next layout pass
+    private int mRestoredScrollX = -1;
+    // State restored before any tab existed, applied once setupWithViewPager() or setTabsFromPagerAdapter() builds them
+    private SlidingTabStripLayout.SavedState mPendingRestoredState;
+
+    // Batched tab mutation state, see beginTabUpdate()/commitTabUpdate()
+    private int mTabUpdateDepth;
+    private int mTabPositionsDirtyFrom = Integer.MAX_VALUE;
+    private boolean mTabContentDirty;
+    private SlidingTabStripLayout.Tab mPendingSelectedTab;
+    private int mPendingReselectPosition = -1;
+
+    // Tabs changed through their setters since the last frame, see requestTabUpdate()
+    private final ArrayList<SlidingTabStripLayout.Tab> mPendingTabUpdates = new ArrayList();
+    private Runnable mFlushTabUpdatesRunnable;
+    private boolean mAllTabsUpdatePending;
+    // Scroll state of the pager as reported by TabLayoutOnPageChangeListener, tab updates are held while it is not idle
+    private int mPagerScrollState;
+    private boolean mDeferTabUpdatesWhileScrolling = true;
+
+    // Position of the TabView currently shown as selected, only trusted while mSelectedTabViewStale is false
+    private int mSelectedTabViewPosition = -1;
+    private boolean mSelectedTabViewStale = true;
 
     private SlidingTabStripLayout.OnTabSelectedListener mOnTabSelectedListener;
+    private SlidingTabStripLayout.OnPagePrefetchListener mOnPagePrefetchListener;
+    private float mPrefetchOffsetThreshold = DEFAULT_PREFETCH_OFFSET_THRESHOLD;
+    // The page last reported to mOnPagePrefetchListener, reported again only after a selection or an idle pager
+    private int mPrefetchedPosition = -1;
     private OnClickListener mTabClickListener;
+    private PagerAdapter mPagerAdapter;
+    // What setupWithViewPager() installed, removed again by detachFromViewPager()
+    private ViewPager mViewPager;
+    private SlidingTabStripLayout.TabLayoutOnPageChangeListener mPageChangeListener;
+    private SlidingTabStripLayout.ViewPagerOnTabSelectedListener mViewPagerTabSelectedListener;
+    private View.OnAttachStateChangeListener mViewPagerAttachListener;
+    private int mPagerSmoothScrollDistance = SlidingTabStripLayout.ViewPagerOnTabSelectedListener.DEFAULT_SMOOTH_SCROLL_DISTANCE;
+    private boolean mPagerJumpCrossfadeEnabled;
+    private DataSetObserver mPagerAdapterObserver;
+    private TabTextPrecomputer mTabTextPrecomputer;
+    private SlidingTabStripLayout.TabTextView mTransformingTextView;
+
+    // Custom view layouts set by resource id are inflated once their tab is first in the visible window
+    private boolean mHasPendingCustomViews;
+    private Runnable mInflateVisibleCustomViewsRunnable;
+    private AsyncLayoutInflater mAsyncLayoutInflater;
+
+    // Icons set by resource id come from the shared TabIconCache
+    private int mTabIconSize;
+    private Executor mTabIconExecutor;
+    private Handler mTabIconHandler;
+    private Drawable.ConstantState mTabIconPlaceholderState;
+    private int mTabIconPlaceholderSize;
 
     public SlidingTabStripLayout(Context context) {
         this(context, (AttributeSet) null);
@@ -103,51 +193,92 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         this.setFillViewport(true);
         this.mTabStrip = new SlidingTabStrip(context);
         this.addView(this.mTabStrip, -2, -1);
-        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TabLayout, defStyleAttr, R.style.Widget_Design_TabLayout);
-        this.mTabStrip.setSelectedIndicatorHeight(a.getDimensionPixelSize(R.styleable.TabLayout_tabIndicatorHeight, 0));
-        this.mTabStrip.setSelectedIndicatorColor(a.getColor(R.styleable.TabLayout_tabIndicatorColor, 0));
-        this.mTabStrip.setUnderlineHeight(a.getDimensionPixelSize(R.styleable.TabLayout_tabUnderlineHeight, 0));
-        this.mTabStrip.setUnderlineColor(a.getColor(R.styleable.TabLayout_tabUnderlineColor, 0));
-        this.mTabTextAppearance = a.getResourceId(R.styleable.TabLayout_tabTextAppearance, R.style.TextAppearance_Design_Tab);
-        this.mTabSelectedTextAppearance = a.getResourceId(R.styleable.TabLayout_tabSelectedTextAppearance, R.style.CustomTabTextAppearance_Bold);
-        this.isTabSelectedTextBold = a.getBoolean(R.styleable.TabLayout_tabIsSelectedTextBold, false);
-        this.mTabPaddingStart = this.mTabPaddingTop = this.mTabPaddingEnd = this.mTabPaddingBottom = a.getDimensionPixelSize(R.styleable.TabLayout_tabPadding, 0);
-        this.mTabPaddingStart = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingStart, this.mTabPaddingStart);
-        this.mTabPaddingTop = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingTop, this.mTabPaddingTop);
-        this.mTabPaddingEnd = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingEnd, this.mTabPaddingEnd);
-        this.mTabPaddingBottom = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingBottom, this.mTabPaddingBottom);
-
-        if (a.hasValue(R.styleable.TabLayout_tabSelectedTextColor)) {
-            TypedArray b = this.getContext().obtainStyledAttributes(mTabTextAppearance, R.styleable.TextAppearance);
-            int selected = a.getColor(R.styleable.TabLayout_tabSelectedTextColor, 0);
-            int defaulted = b.getColorStateList(R.styleable.TextAppearance_android_textColor).getDefaultColor();
-            this.mTabTextColors = createColorStateList(selected, selected, defaulted);
+        TabLayoutStyle style = TabLayoutStyle.obtain(context, attrs, defStyleAttr);
+        this.mTabStrip.setSelectedIndicatorHeight(style.indicatorHeight);
+        this.mTabStrip.setSelectedIndicatorColor(style.indicatorColor);
+        this.mTabStrip.setUnderlineHeight(style.underlineHeight);
+        this.mTabStrip.setUnderlineColor(style.underlineColor);
+        this.mTabTextAppearance = style.textAppearance;
+        this.mTabSelectedTextAppearance = style.selectedTextAppearance;
+        this.isTabSelectedTextBold = style.isSelectedTextBold;
+        this.mResolvedTabTextAppearance = style.resolvedTextAppearance;
+        this.mResolvedTabSelectedTextAppearance = style.resolvedSelectedTextAppearance;
+        this.mTabPaddingStart = style.paddingStart;
+        this.mTabPaddingTop = style.paddingTop;
+        this.mTabPaddingEnd = style.paddingEnd;
+        this.mTabPaddingBottom = style.paddingBottom;
+        this.mTabTextColors = style.textColors;
+        this.mTabMinWidth = style.minWidth;
+        this.mRequestedTabMaxWidth = style.requestedMaxWidth;
+        this.mTabBackgroundResId = style.backgroundResId;
+        this.mContentInsetStart = style.contentInsetStart;
+        this.mMode = style.mode;
+        this.mTabGravity = style.gravity;
+        this.applyModeAndGravity();
+    }
+
+    // Scroll to the position given
+    public void setScrollPosition(int position, float positionOffset, boolean updateSelectedText) {
+        this.applyScrollPosition(position, positionOffset, updateSelectedText);
+    }
+
+    // Returns false when the position was not applied, the same position has to be given again later
+    boolean applyScrollPosition(int position, float positionOffset, boolean updateSelectedText) {
+        if (position < 0 || position >= this.mTabs.size()) {
+            return false;
+        } else if (this.mTabStrip.isIndicatorAnimationRunning() && !this.mTabStrip.retargetIndicatorSpring(position, positionOffset)) {
+            // An interpolated tab transition in flight owns the scroll and the indicator until it ends, a spring
+            // follows the pager instead
+            return false;
         } else {
-            this.mTabTextColors = this.loadTextColorFromTextAppearance(this.mTabTextAppearance);
+            long start = this.beginMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_SET_SCROLL_POSITION);
+            this.mTabStrip.setIndicatorPositionFromTabPosition(position, positionOffset);
+            this.scrollTo(this.calculateScrollXForTab(position, positionOffset), 0);
+            if (updateSelectedText) {
+                this.setSelectedTabView(Math.round((float) position + positionOffset));
+            }
+
+            this.endMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_SET_SCROLL_POSITION, start);
+            return true;
         }
+    }
 
+    /**
+     * Installs a listener that receives the time spent in the measure, layout, draw and scroll paths of this
+     * layout along with a few counters, see {@link SlidingTabStripLayout.TabStripMetrics}. While one is installed
+     * the timed sections are also emitted as trace sections of the same names. Pass {@code null} to remove it,
+     * without a listener the instrumentation costs a field read per call.
+     */
+    public void setTabStripMetrics(SlidingTabStripLayout.TabStripMetrics metrics) {
+        this.mTabStripMetrics = metrics;
+    }
 
-        this.mTabMinWidth = a.getDimensionPixelSize(R.styleable.TabLayout_tabMinWidth, 0);
-        this.mRequestedTabMaxWidth = a.getDimensionPixelSize(R.styleable.TabLayout_tabMaxWidth, 0);
-        this.mTabBackgroundResId = a.getResourceId(R.styleable.TabLayout_tabBackground, 0);
-        this.mContentInsetStart = a.getDimensionPixelSize(R.styleable.TabLayout_tabContentStart, 0);
-        this.mMode = a.getInt(R.styleable.TabLayout_tabMode, 1);
-        this.mTabGravity = a.getInt(R.styleable.TabLayout_tabGravity, 0);
-        a.recycle();
-        this.applyModeAndGravity();
+    // Returns 0 when nothing is listening, endMetricsSection then does nothing
+    long beginMetricsSection(String section) {
+        if (this.mTabStripMetrics == null) {
+            return 0L;
+        } else {
+            TraceCompat.beginSection(section);
+            return System.nanoTime();
+        }
     }
 
-    // Scroll to the position given
-    public void setScrollPosition(int position, float positionOffset, boolean updateSelectedText) {
-        if (!isAnimationRunning(this.getAnimation())) {
-            if (position >= 0 && position < this.mTabStrip.getChildCount()) {
-                this.mTabStrip.setIndicatorPositionFromTabPosition(position, positionOffset);
-                this.scrollTo(this.calculateScrollXForTab(position, positionOffset), 0);
-                if (updateSelectedText) {
-                    this.setSelectedTabView(Math.round((float) position + positionOffset));
-                }
+    void endMetricsSection(String section, long start) {
+        if (start != 0L) {
+            long duration = System.nanoTime() - start;
+            TraceCompat.endSection();
+            if (this.mTabStripMetrics != null) {
+                this.mTabStripMetrics.onSectionTimed(section, duration);
             }
         }
+
+    }
+
+    void countMetricsEvent(String counter) {
+        if (this.mTabStripMetrics != null) {
+            this.mTabStripMetrics.onCounter(counter);
+        }
+
     }
 
     public void addTab(SlidingTabStripLayout.Tab tab) {
@@ -165,7 +296,7 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
             this.addTabView(tab, setSelected);
             this.configureTab(tab, this.mTabs.size());
             if (setSelected) {
-                tab.select();
+                this.selectAddedTab(tab);
             }
 
         }
@@ -178,12 +309,60 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
             this.addTabView(tab, position, setSelected);
             this.configureTab(tab, position);
             if (setSelected) {
-                tab.select();
+                this.selectAddedTab(tab);
             }
 
         }
     }
 
+    /**
+     * Installs a listener that is told which page is likely to be shown next while the user is still deciding: once
+     * a drag of the pager set up with {@link #setupWithViewPager(ViewPager)} passes the prefetch offset towards a
+     * neighbouring page, or as soon as a finger goes down on a tab. Each page is reported once until the selection
+     * changes or the pager comes to rest.
+     */
+    public void setOnPagePrefetchListener(SlidingTabStripLayout.OnPagePrefetchListener listener) {
+        this.mOnPagePrefetchListener = listener;
+        this.mPrefetchedPosition = -1;
+    }
+
+    /**
+     * Sets the fraction of a page, between 0 and 1, a drag has to cover towards a neighbouring page before that page
+     * is reported to the prefetch listener. Defaults to {@link #DEFAULT_PREFETCH_OFFSET_THRESHOLD}.
+     */
+    public void setPrefetchOffsetThreshold(float threshold) {
+        this.mPrefetchOffsetThreshold = threshold;
+    }
+
+    public float getPrefetchOffsetThreshold() {
+        return this.mPrefetchOffsetThreshold;
+    }
+
+    void dispatchPagePrefetch(int position) {
+        if (this.mOnPagePrefetchListener != null && position >= 0 && position < this.mTabs.size() && position != this.mPrefetchedPosition && position != this.getSelectedTabPosition()) {
+            this.mPrefetchedPosition = position;
+            this.mOnPagePrefetchListener.onPrefetchPage(position);
+        }
+
+    }
+
+    // Called for every dragged frame with the pager's position and offset, reports the neighbour the drag heads to
+    void onPageDragged(int position, float positionOffset) {
+        int selected = this.getSelectedTabPosition();
+        if (this.mOnPagePrefetchListener != null && selected >= 0) {
+            if (position == selected && positionOffset >= this.mPrefetchOffsetThreshold) {
+                this.dispatchPagePrefetch(selected + 1);
+            } else if (position == selected - 1 && 1.0F - positionOffset >= this.mPrefetchOffsetThreshold) {
+                this.dispatchPagePrefetch(selected - 1);
+            }
+        }
+
+    }
+
+    void resetPagePrefetch() {
+        this.mPrefetchedPosition = -1;
+    }
+
     public void setOnTabSelectedListener(SlidingTabStripLayout.OnTabSelectedListener onTabSelectedListener) {
         this.mOnTabSelectedListener = onTabSelectedListener;
     }
@@ -204,11 +383,12 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         if (tab.mParent != this) {
             throw new IllegalArgumentException("Tab does not belong to this TabLayout.");
         } else {
-            this.removeTabAt(tab.getPosition());
+            this.removeTabAt(this.mTabUpdateDepth > 0 ? this.mTabs.indexOf(tab) : tab.getPosition());
         }
     }
 
     public void removeTabAt(int position) {
+        this.invalidateSelectedTabView();
         int selectedTabPosition = this.mSelectedTab != null ? this.mSelectedTab.getPosition() : 0;
         this.removeTabViewAt(position);
         SlidingTabStripLayout.Tab removedTab = (SlidingTabStripLayout.Tab) this.mTabs.remove(position);
@@ -216,6 +396,14 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
             removedTab.setPosition(-1);
         }
 
+        if (this.mTabUpdateDepth > 0) {
+            this.markTabPositionsDirty(position);
+            if (removedTab == this.mSelectedTab && removedTab != null) {
+                this.mPendingReselectPosition = position;
+            }
+            return;
+        }
+
         int newTabCount = this.mTabs.size();
 
         for (int i = position; i < newTabCount; ++i) {
@@ -228,8 +416,134 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
 
     }
 
+    /**
+     * Removes {@code count} tabs starting at {@code from} with a single renumber and layout pass.
+     */
+    public void removeTabs(int from, int count) {
+        if (count > 0) {
+            this.invalidateSelectedTabView();
+            this.beginTabUpdate();
+
+            try {
+                List<SlidingTabStripLayout.Tab> removed = this.mTabs.subList(from, from + count);
+                int i = 0;
+
+                for (int z = removed.size(); i < z; ++i) {
+                    SlidingTabStripLayout.Tab tab = (SlidingTabStripLayout.Tab) removed.get(i);
+                    if (tab == this.mSelectedTab) {
+                        this.mPendingReselectPosition = from;
+                    }
+
+                    tab.setPosition(-1);
+                }
+
+                removed.clear();
+                if (!this.mTabStrip.usesTabGeometry()) {
+                    this.mTabStrip.removeViewsInLayout(from, count);
+                }
+
+                this.markTabPositionsDirty(from);
+            } finally {
+                this.commitTabUpdate();
+            }
+        }
+    }
+
+    /**
+     * Replaces all the tabs of this layout with {@code tabs} with a single renumber and layout pass. The
+     * first tab is selected.
+     */
+    public void setTabs(List<SlidingTabStripLayout.Tab> tabs) {
+        this.beginTabUpdate();
+
+        try {
+            this.removeAllTabs();
+            int i = 0;
+
+            for (int count = tabs.size(); i < count; ++i) {
+                this.addTab((SlidingTabStripLayout.Tab) tabs.get(i));
+            }
+        } finally {
+            this.commitTabUpdate();
+        }
+
+    }
+
+    /**
+     * Starts a batch of tab mutations. Until the matching {@link #commitTabUpdate()} the tabs are not
+     * renumbered, so {@link Tab#getPosition()} may be stale, and no layout is requested. Calls can be nested.
+     */
+    public void beginTabUpdate() {
+        ++this.mTabUpdateDepth;
+    }
+
+    /**
+     * Ends a batch started with {@link #beginTabUpdate()}. The outermost commit renumbers the tabs once,
+     * applies the pending selection and requests a single layout.
+     */
+    public void commitTabUpdate() {
+        if (this.mTabUpdateDepth == 0) {
+            throw new IllegalStateException("commitTabUpdate() called without beginTabUpdate()");
+        } else {
+            if (--this.mTabUpdateDepth == 0) {
+                this.applyPendingTabUpdate();
+            }
+
+        }
+    }
+
+    private void markTabPositionsDirty(int from) {
+        this.mTabPositionsDirtyFrom = Math.min(this.mTabPositionsDirtyFrom, from);
+    }
+
+    private void applyPendingTabUpdate() {
+        int count = this.mTabs.size();
+
+        for (int i = this.mTabPositionsDirtyFrom; i < count; ++i) {
+            ((SlidingTabStripLayout.Tab) this.mTabs.get(i)).setPosition(i);
+        }
+
+        this.mTabPositionsDirtyFrom = Integer.MAX_VALUE;
+        if (this.mTabContentDirty) {
+            this.mTabContentDirty = false;
+            this.updateAllTabs();
+        }
+
+        if (this.mTabStrip.usesTabGeometry()) {
+            this.mTabStrip.notifyTabsChanged();
+        } else {
+            this.mTabStrip.requestLayout();
+        }
+
+        SlidingTabStripLayout.Tab pendingSelectedTab = this.mPendingSelectedTab;
+        int pendingReselectPosition = this.mPendingReselectPosition;
+        this.mPendingSelectedTab = null;
+        this.mPendingReselectPosition = -1;
+        if (pendingSelectedTab != null && pendingSelectedTab.getPosition() != -1) {
+            this.selectTab(pendingSelectedTab);
+        } else if (pendingReselectPosition != -1 && (this.mSelectedTab == null || this.mSelectedTab.getPosition() == -1)) {
+            this.selectTab(this.mTabs.isEmpty() ? null : (SlidingTabStripLayout.Tab) this.mTabs.get(Math.min(Math.max(0, pendingReselectPosition - 1), this.mTabs.size() - 1)));
+        }
+
+    }
+
+    private void selectAddedTab(SlidingTabStripLayout.Tab tab) {
+        if (this.mTabUpdateDepth > 0) {
+            this.mPendingSelectedTab = tab;
+        } else {
+            tab.select();
+        }
+
+    }
+
     public void removeAllTabs() {
-        this.mTabStrip.removeAllViews();
+        this.invalidateSelectedTabView();
+        if (this.mTabUpdateDepth > 0) {
+            this.mTabStrip.removeAllViewsInLayout();
+        } else {
+            this.mTabStrip.removeAllViews();
+        }
+
         Iterator i = this.mTabs.iterator();
 
         while (i.hasNext()) {
@@ -238,11 +552,22 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
             i.remove();
         }
 
+        if (this.mTabUpdateDepth > 0) {
+            this.mPendingSelectedTab = null;
+            this.markTabPositionsDirty(0);
+        } else if (this.mTabStrip.usesTabGeometry()) {
+            this.mTabStrip.notifyTabsChanged();
+        }
+
     }
 
     public void setTabMode(int mode) {
         if (mode != this.mMode) {
+            boolean usedTabGeometry = this.mTabStrip.usesTabGeometry();
             this.mMode = mode;
+            if (usedTabGeometry != this.mTabStrip.usesTabGeometry()) {
+                this.rebuildTabViews();
+            }
             this.applyModeAndGravity();
         }
 
@@ -264,568 +589,2625 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         return this.mTabGravity;
     }
 
-    public void setTabTextColors(ColorStateList textColor) {
-        if (this.mTabTextColors != textColor) {
-            this.mTabTextColors = textColor;
-            this.updateAllTabs();
+    /**
+     * When enabled and the layout is in {@link #MODE_SCROLLABLE}, only the TabViews inside the visible
+     * window (plus a small margin) are kept in the strip and the rest are recycled as the strip scrolls.
+     */
+    public void setTabViewVirtualizationEnabled(boolean enabled) {
+        if (this.mTabViewVirtualizationEnabled != enabled) {
+            boolean usedTabGeometry = this.mTabStrip.usesTabGeometry();
+            this.mTabViewVirtualizationEnabled = enabled;
+            if (usedTabGeometry != this.mTabStrip.usesTabGeometry()) {
+                this.rebuildTabViews();
+            }
         }
-    }
 
-    public int getTabTextAppearance() {
-        return this.mTabTextAppearance;
     }
 
-    public void setTabTextAppearance(int textAppearance) {
-        this.mTabTextAppearance = textAppearance;
-        this.updateAllTabs();
+    public boolean isTabViewVirtualizationEnabled() {
+        return this.mTabViewVirtualizationEnabled;
     }
 
+    /**
+     * When enabled the strip creates no TabViews at all, a single view draws every tab label, icon and the
+     * indicator, does its own hit testing and exposes the tabs as virtual accessibility nodes. Meant for text
+     * and icon tabs, custom tab views are not drawn in this mode.
+     */
+    public void setFlatRenderingEnabled(boolean enabled) {
+        if (this.mFlatRenderingEnabled != enabled) {
+            this.mFlatRenderingEnabled = enabled;
+            this.mTabStrip.onFlatRenderingChanged();
+            this.rebuildTabViews();
+        }
 
-    public ColorStateList getTabTextColors() {
-        return this.mTabTextColors;
     }
 
-    public void setTabTextColors(int normalColor, int selectedColor) {
-        this.setTabTextColors(createColorStateList(selectedColor, selectedColor, normalColor));
+    public boolean isFlatRenderingEnabled() {
+        return this.mFlatRenderingEnabled;
     }
 
-    public void setupWithViewPager(ViewPager viewPager) {
-        PagerAdapter adapter = viewPager.getAdapter();
-        if (adapter == null) {
-            throw new IllegalArgumentException("ViewPager does not have a PagerAdapter set");
-        } else {
-            this.setTabsFromPagerAdapter(adapter);
-            viewPager.addOnPageChangeListener(new SlidingTabStripLayout.TabLayoutOnPageChangeListener(this));
-            this.setOnTabSelectedListener(new SlidingTabStripLayout.ViewPagerOnTabSelectedListener(viewPager));
+    /**
+     * When enabled the selected indicator is drawn by this scroll container on top of the strip instead of by the
+     * strip itself. Moving the indicator then only re-records this view's display list, in which the strip is a
+     * single render node, so the tab content is never re-recorded while dragging.
+     */
+    public void setIndicatorLayerEnabled(boolean enabled) {
+        if (this.mIndicatorLayerEnabled != enabled) {
+            this.mIndicatorLayerEnabled = enabled;
+            ViewCompat.postInvalidateOnAnimation(this.mTabStrip);
+            ViewCompat.postInvalidateOnAnimation(this);
         }
+
     }
 
-    public void setTabsFromPagerAdapter(PagerAdapter adapter) {
-        this.removeAllTabs();
-        int i = 0;
+    public boolean isIndicatorLayerEnabled() {
+        return this.mIndicatorLayerEnabled;
+    }
 
-        for (int count = adapter.getCount(); i < count; ++i) {
-            this.addTab(this.newTab().setText(adapter.getPageTitle(i)));
+    /**
+     * When enabled, tab transitions move the indicator with a spring driven by frame callbacks instead of the
+     * fixed 300ms interpolated animation. A transition interrupted by another tap keeps its velocity, and
+     * transitions to far away tabs start from where the indicator is. Needs API 16, on older releases and while
+     * the layout is detached or not shown the interpolated animation is used.
+     */
+    public void setIndicatorSpringEnabled(boolean enabled) {
+        if (this.mIndicatorSpringEnabled != enabled) {
+            this.mIndicatorSpringEnabled = enabled;
+            if (!enabled) {
+                this.mTabStrip.settleIndicatorSpring();
+            }
         }
 
     }
 
-    private void updateAllTabs() {
-        int i = 0;
+    public boolean isIndicatorSpringEnabled() {
+        return this.mIndicatorSpringEnabled;
+    }
 
-        for (int z = this.mTabStrip.getChildCount(); i < z; ++i) {
-            this.updateTab(i);
+    /**
+     * When enabled, custom view layouts set with {@link SlidingTabStripLayout.Tab#setCustomView(int)} are inflated
+     * on a background thread once their tab first scrolls into view, and swapped in when ready. Until then the tab
+     * shows its text and icon. When disabled they are inflated on the UI thread at that point instead.
+     */
+    public void setAsyncCustomViewInflationEnabled(boolean enabled) {
+        this.mAsyncCustomViewInflationEnabled = enabled;
+    }
+
+    public boolean isAsyncCustomViewInflationEnabled() {
+        return this.mAsyncCustomViewInflationEnabled;
+    }
+
+    /**
+     * Sets how far, in pixels, the indicator has to move while following the pager or an animation before it is
+     * redrawn. Smaller moves are skipped until they add up. Defaults to a quarter of a pixel, 0 redraws on every
+     * change.
+     */
+    public void setIndicatorRedrawThreshold(float thresholdPx) {
+        this.mTabStrip.setIndicatorRedrawThreshold(thresholdPx);
+    }
+
+    public float getIndicatorRedrawThreshold() {
+        return this.mTabStrip.getIndicatorRedrawThreshold();
+    }
+
+    /**
+     * Opt-in: measures tab titles on {@code executor} as soon as they are set, so the first measure pass of a
+     * TabView can use the precomputed size. Titles that are not ready in time are measured on the UI thread as
+     * before. Pass {@code null} to turn it off.
+     */
+    public void setTabTextPrecomputeExecutor(Executor executor) {
+        this.mTabTextPrecomputer = executor != null ? new TabTextPrecomputer(executor) : null;
+        if (this.mTabTextPrecomputer != null) {
+            int i = 0;
+
+            for (int count = this.mTabs.size(); i < count; ++i) {
+                this.precomputeTabText((SlidingTabStripLayout.Tab) this.mTabs.get(i));
+            }
         }
 
     }
 
-    private SlidingTabStripLayout.TabView createTabView(SlidingTabStripLayout.Tab tab) {
-        SlidingTabStripLayout.TabView tabView = new SlidingTabStripLayout.TabView(this.getContext(), tab);
-        tabView.setFocusable(true);
-        if (this.mTabClickListener == null) {
-            this.mTabClickListener = new OnClickListener() {
-                public void onClick(View view) {
-                    SlidingTabStripLayout.TabView tabView = (SlidingTabStripLayout.TabView) view;
-                    tabView.getTab().select();
+    void precomputeTabText(final SlidingTabStripLayout.Tab tab) {
+        tab.mTextMetrics = null;
+        if (this.mTabTextPrecomputer != null && tab.mCustomView == null && !TextUtils.isEmpty(tab.mText)) {
+            this.mTabTextPrecomputer.precompute(tab.mText, this.getTransformedTabText(tab.mText), this.getResolvedTabTextAppearance(), this.getResolvedTabSelectedTextAppearance(), new TabTextPrecomputer.Callback() {
+                public void onMetricsReady(TabTextPrecomputer.Metrics metrics) {
+                    if (metrics.text == tab.mText) {
+                        tab.mTextMetrics = metrics;
+                        SlidingTabStripLayout.TabView tabView = tab.getPosition() >= 0 ? SlidingTabStripLayout.this.getTabViewAt(tab.getPosition()) : null;
+                        if (tabView != null && tabView.mTextView != null) {
+                            tabView.mTextView.setTextMetrics(metrics);
+                        }
+                    }
                 }
-            };
+            });
         }
 
-        tabView.setOnClickListener(this.mTabClickListener);
-        return tabView;
     }
 
-    private void configureTab(SlidingTabStripLayout.Tab tab, int position) {
-        tab.setPosition(position);
-        this.mTabs.add(position, tab);
-        int count = this.mTabs.size();
+    /**
+     * Sets the size, in pixels, that bitmap icons set with {@link SlidingTabStripLayout.Tab#setIcon(int)} are
+     * loaded at. Larger bitmaps are downsampled to it when decoded. 0, the default, loads them at their own size.
+     * It is also the size of the placeholder shown while an icon loads on the executor set with
+     * {@link #setTabIconLoadExecutor(Executor)}: with 0 there is no placeholder, so the tab is laid out without
+     * an icon until it arrives and may change width then.
+     */
+    public void setTabIconSize(int sizePx) {
+        this.mTabIconSize = sizePx;
+    }
 
-        for (int i = position + 1; i < count; ++i) {
-            ((SlidingTabStripLayout.Tab) this.mTabs.get(i)).setPosition(i);
-        }
+    public int getTabIconSize() {
+        return this.mTabIconSize;
+    }
 
+    /**
+     * Opt-in: icons set with {@link SlidingTabStripLayout.Tab#setIcon(int)} that are not in the shared icon cache yet
+     * are loaded on {@code executor}, the tab shows an empty placeholder of the icon size until then, or no icon
+     * when {@link #setTabIconSize(int)} is 0. Pass {@code null} to load them on the UI thread.
+     */
+    public void setTabIconLoadExecutor(Executor executor) {
+        this.mTabIconExecutor = executor;
     }
 
-    private void updateTab(int position) {
-        SlidingTabStripLayout.TabView view = (SlidingTabStripLayout.TabView) this.mTabStrip.getChildAt(position);
-        if (view != null) {
-            view.update();
+    void loadTabIcon(final SlidingTabStripLayout.Tab tab, final int resId) {
+        final Context context = this.getContext();
+        final int size = this.mTabIconSize;
+        final TabIconCache cache = TabIconCache.getInstance();
+        Drawable icon = cache.get(context, resId, size);
+        if (icon == null && this.mTabIconExecutor == null) {
+            icon = cache.load(context, resId, size);
         }
 
-    }
+        if (icon != null) {
+            tab.setIcon(icon);
+        } else {
+            tab.setIcon(this.newTabIconPlaceholder(size));
+            // Any later icon or the tab's removal moves the generation on, the load then lands nowhere
+            final int generation = tab.mIconGeneration;
+            if (this.mTabIconHandler == null) {
+                this.mTabIconHandler = new Handler(Looper.getMainLooper());
+            }
 
-    private void addTabView(SlidingTabStripLayout.Tab tab, boolean setSelected) {
-        SlidingTabStripLayout.TabView tabView = this.createTabView(tab);
-        this.mTabStrip.addView(tabView, this.createLayoutParamsForTabs());
-        if (setSelected) {
-            tabView.setSelected(true);
+            final Handler handler = this.mTabIconHandler;
+            this.mTabIconExecutor.execute(new Runnable() {
+                public void run() {
+                    final Drawable loaded = cache.load(context, resId, size);
+                    handler.post(new Runnable() {
+                        public void run() {
+                            if (tab.mIconGeneration == generation) {
+                                tab.mIcon = loaded;
+                                if (tab.getPosition() >= 0) {
+                                    SlidingTabStripLayout.this.requestTabUpdate(tab);
+                                }
+                            }
+                        }
+                    });
+                }
+            });
         }
 
+        // After setIcon(Drawable), which forgets the resource id
+        tab.mIconResId = resId;
     }
 
-    private void addTabView(SlidingTabStripLayout.Tab tab, int position, boolean setSelected) {
-        SlidingTabStripLayout.TabView tabView = this.createTabView(tab);
-        this.mTabStrip.addView(tabView, position, this.createLayoutParamsForTabs());
-        if (setSelected) {
-            tabView.setSelected(true);
+    // All the placeholders of a size share one transparent GradientDrawable state
+    private Drawable newTabIconPlaceholder(int size) {
+        if (size <= 0) {
+            return null;
+        } else {
+            if (this.mTabIconPlaceholderState == null || this.mTabIconPlaceholderSize != size) {
+                GradientDrawable placeholder = new GradientDrawable();
+                placeholder.setColor(0);
+                placeholder.setSize(size, size);
+                this.mTabIconPlaceholderState = placeholder.getConstantState();
+                this.mTabIconPlaceholderSize = size;
+            }
+
+            return this.mTabIconPlaceholderState.newDrawable(this.getResources());
+        }
+    }
+
+    // The text a tab title displays once the text appearance's transformation (textAllCaps) is applied
+    private CharSequence getTransformedTabText(CharSequence text) {
+        if (this.mTransformingTextView == null) {
+            this.mTransformingTextView = new SlidingTabStripLayout.TabTextView(this.getContext());
+            this.mTransformingTextView.setTextAppearance(this.getContext(), this.mTabTextAppearance);
         }
 
+        TransformationMethod method = this.mTransformingTextView.getTransformationMethod();
+        return method != null ? method.getTransformation(text, this.mTransformingTextView) : text;
     }
 
-    private LinearLayout.LayoutParams createLayoutParamsForTabs() {
-        LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(-2, -1);
-        this.updateTabViewLayoutParams(lp);
-        return lp;
+    public int getSelectedTabPosition() {
+        return this.mSelectedTab != null ? this.mSelectedTab.getPosition() : -1;
     }
 
-    private void updateTabViewLayoutParams(LinearLayout.LayoutParams lp) {
-        if (this.mMode == 1 && this.mTabGravity == 0) {
-            lp.width = 0;
-            lp.weight = 1.0F;
-        } else {
-            lp.width = -2;
-            lp.weight = 0.0F;
-        }
+    /**
+     * Returns the position of the tab under x, in this view's coordinates, or -1 when x is not over a tab.
+     * Answered from the strip's offset index, so it does not depend on the tab views being materialized.
+     */
+    public int getTabPositionAt(int x) {
+        return this.mTabStrip.getTabOffsets().findPositionContaining(x + this.getScrollX() - this.mTabStrip.getLeft());
+    }
 
+    public int getFirstVisibleTabPosition() {
+        return this.mTabStrip.getTabOffsets().findPositionAt(this.getScrollX() - this.mTabStrip.getLeft());
     }
 
-    private int dpToPx(int dps) {
-        return Math.round(this.getResources().getDisplayMetrics().density * (float) dps);
+    public int getLastVisibleTabPosition() {
+        return this.mTabStrip.getTabOffsets().findPositionAt(this.getScrollX() + this.getWidth() - 1 - this.mTabStrip.getLeft());
     }
 
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        switch (MeasureSpec.getMode(heightMeasureSpec)) {
-            case -2147483648:
-                heightMeasureSpec = MeasureSpec.makeMeasureSpec(Math.min(this.dpToPx(48), MeasureSpec.getSize(heightMeasureSpec)), 1073741824);
-                break;
-            case 0:
-                heightMeasureSpec = MeasureSpec.makeMeasureSpec(this.dpToPx(48), 1073741824);
-        }
+    /**
+     * Returns the scrollX that centers the tab at position, moved towards the next tab by positionOffset.
+     * Always 0 in MODE_FIXED.
+     */
+    public int getScrollXForTab(int position, float positionOffset) {
+        return this.calculateScrollXForTab(position, positionOffset);
+    }
 
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int defaultTabMaxWidth;
-        if (this.mMode == 1 && this.getChildCount() == 1) {
-            View maxTabWidth = this.getChildAt(0);
-            defaultTabMaxWidth = this.getMeasuredWidth();
-            if (maxTabWidth.getMeasuredWidth() > defaultTabMaxWidth) {
-                int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec, this.getPaddingTop() + this.getPaddingBottom(), maxTabWidth.getLayoutParams().height);
-                int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(defaultTabMaxWidth, 1073741824);
-                maxTabWidth.measure(childWidthMeasureSpec, childHeightMeasureSpec);
-            }
+    public void setTabTextColors(ColorStateList textColor) {
+        if (this.mTabTextColors != textColor) {
+            this.mTabTextColors = textColor;
+            this.requestAllTabsUpdate();
         }
+    }
+
+    public int getTabTextAppearance() {
+        return this.mTabTextAppearance;
+    }
 
-        int maxTabWidth1 = this.mRequestedTabMaxWidth;
-        defaultTabMaxWidth = this.getMeasuredWidth() - this.dpToPx(56);
-        if (maxTabWidth1 == 0 || maxTabWidth1 > defaultTabMaxWidth) {
-            maxTabWidth1 = defaultTabMaxWidth;
+    public void setTabTextAppearance(int textAppearance) {
+        this.mTabTextAppearance = textAppearance;
+        this.mResolvedTabTextAppearance = null;
+        this.mTransformingTextView = null;
+        if (this.mTabTextPrecomputer != null) {
+            this.setTabTextPrecomputeExecutor(this.mTabTextPrecomputer.getExecutor());
         }
 
-        this.mTabMaxWidth = maxTabWidth1;
+        this.requestAllTabsUpdate();
     }
 
-    private void removeTabViewAt(int position) {
-        this.mTabStrip.removeViewAt(position);
-        this.requestLayout();
+
+    public ColorStateList getTabTextColors() {
+        return this.mTabTextColors;
     }
 
-    private void animateToTab(int newPosition) {
-        this.clearAnimation();
-        if (newPosition != -1) {
-            if (this.getWindowToken() != null && ViewCompat.isLaidOut(this)) {
-                int startScrollX = this.getScrollX();
-                int targetScrollX = this.calculateScrollXForTab(newPosition, 0.0F);
-                boolean duration = true;
-                if (startScrollX != targetScrollX) {
-                    ValueAnimatorCompat animator = ViewUtils.createAnimator();
-                    animator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
-                    animator.setDuration(300);
-                    animator.setIntValues(startScrollX, targetScrollX);
-                    animator.addUpdateListener(new AnimatorUpdateListener() {
-                        public void onAnimationUpdate(ValueAnimatorCompat animator) {
-                            SlidingTabStripLayout.this.scrollTo(animator.getAnimatedIntValue(), 0);
-                        }
-                    });
-                    animator.start();
-                }
+    public void setTabTextColors(int normalColor, int selectedColor) {
+        this.setTabTextColors(createColorStateList(selectedColor, selectedColor, normalColor));
+    }
 
-                this.mTabStrip.animateIndicatorToPosition(newPosition, 300);
+    /**
+     * Binds this layout to the pager: one tab per page, kept in sync with its adapter, and the pager and the tabs
+     * follow each other. Calling it again, with the same or another pager, first undoes the previous binding, see
+     * {@link #detachFromViewPager()}. With the same adapter the tabs that still match a page are kept, another
+     * adapter gets all of its tabs built afresh so nothing of the old ones, icons, custom views or tags, carries over.
+     */
+    public void setupWithViewPager(ViewPager viewPager) {
+        PagerAdapter adapter = viewPager.getAdapter();
+        if (adapter == null) {
+            throw new IllegalArgumentException("ViewPager does not have a PagerAdapter set");
+        } else {
+            boolean sameAdapter = adapter == this.mPagerAdapter;
+            this.detachFromViewPager();
+            this.mViewPager = viewPager;
+            this.setPagerAdapterObserved(adapter);
+            if (sameAdapter) {
+                this.syncTabsWithPagerAdapter();
             } else {
-                this.setScrollPosition(newPosition, 0.0F, true);
+                this.setTabsFromPagerAdapter(adapter);
+            }
+            this.mPageChangeListener = new SlidingTabStripLayout.TabLayoutOnPageChangeListener(this);
+            viewPager.addOnPageChangeListener(this.mPageChangeListener);
+            if (this.mViewPagerAttachListener == null) {
+                this.mViewPagerAttachListener = new SlidingTabStripLayout.ViewPagerAttachListener(this);
+            }
+
+            viewPager.addOnAttachStateChangeListener(this.mViewPagerAttachListener);
+            this.mViewPagerTabSelectedListener = new SlidingTabStripLayout.ViewPagerOnTabSelectedListener(viewPager);
+            this.mViewPagerTabSelectedListener.setSmoothScrollDistance(this.mPagerSmoothScrollDistance);
+            this.mViewPagerTabSelectedListener.setJumpCrossfadeEnabled(this.mPagerJumpCrossfadeEnabled);
+            this.setOnTabSelectedListener(this.mViewPagerTabSelectedListener);
+            // The page the pager restored by itself takes over from the saved selection below
+            this.applyPendingRestoredState();
+            int currentItem = viewPager.getCurrentItem();
+            if (currentItem >= 0 && currentItem < this.mTabs.size() && currentItem != this.getSelectedTabPosition()) {
+                this.selectTab(this.getTabAt(currentItem), false);
             }
         }
     }
 
-    private void setSelectedTabView(int position) {
-        int tabCount = this.mTabStrip.getChildCount();
+    /**
+     * Undoes {@link #setupWithViewPager(ViewPager)}: removes the page change listener from the pager, stops
+     * observing its adapter and clears the tab selected listener that was driving it. The tabs stay as they are.
+     * Does nothing when the layout is not bound.
+     */
+    public void detachFromViewPager() {
+        if (this.mViewPager != null) {
+            this.mViewPager.removeOnPageChangeListener(this.mPageChangeListener);
+            this.mViewPager.removeOnAttachStateChangeListener(this.mViewPagerAttachListener);
+            this.mViewPager = null;
+            this.mPageChangeListener = null;
+        }
+
+        if (this.mViewPagerTabSelectedListener != null) {
+            if (this.mOnTabSelectedListener == this.mViewPagerTabSelectedListener) {
+                this.setOnTabSelectedListener((SlidingTabStripLayout.OnTabSelectedListener) null);
+            }
 
-        for (int i = 0; i < tabCount; ++i) {
-            View child = this.mTabStrip.getChildAt(i);
-            child.setSelected(i == position);
+            this.mViewPagerTabSelectedListener = null;
         }
 
+        this.setPagerAdapterObserved((PagerAdapter) null);
+        // Updates held for a gesture of the old pager would otherwise never be released
+        this.onPagerScrollStateChanged(0);
     }
 
-    private static boolean isAnimationRunning(Animation animation) {
-        return animation != null && animation.hasStarted() && !animation.hasEnded();
+    /**
+     * The jump policy of the pager set up with {@link #setupWithViewPager(ViewPager)}, see
+     * {@link SlidingTabStripLayout.ViewPagerOnTabSelectedListener#setSmoothScrollDistance(int)}.
+     */
+    public void setPagerSmoothScrollDistance(int pages) {
+        this.mPagerSmoothScrollDistance = pages;
+        if (this.mViewPagerTabSelectedListener != null) {
+            this.mViewPagerTabSelectedListener.setSmoothScrollDistance(pages);
+        }
+
     }
 
-    void selectTab(SlidingTabStripLayout.Tab tab) {
-        if (this.mSelectedTab == tab) {
-            if (this.mSelectedTab != null) {
-                if (this.mOnTabSelectedListener != null) {
-                    this.mOnTabSelectedListener.onTabReselected(this.mSelectedTab);
+    public int getPagerSmoothScrollDistance() {
+        return this.mPagerSmoothScrollDistance;
+    }
+
+    // See SlidingTabStripLayout.ViewPagerOnTabSelectedListener#setJumpCrossfadeEnabled(boolean)
+    public void setPagerJumpCrossfadeEnabled(boolean enabled) {
+        this.mPagerJumpCrossfadeEnabled = enabled;
+        if (this.mViewPagerTabSelectedListener != null) {
+            this.mViewPagerTabSelectedListener.setJumpCrossfadeEnabled(enabled);
+        }
+
+    }
+
+    public boolean isPagerJumpCrossfadeEnabled() {
+        return this.mPagerJumpCrossfadeEnabled;
+    }
+
+    private void setPagerAdapterObserved(PagerAdapter adapter) {
+        if (this.mPagerAdapter != null && this.mPagerAdapterObserver != null) {
+            this.mPagerAdapter.unregisterDataSetObserver(this.mPagerAdapterObserver);
+        }
+
+        this.mPagerAdapter = adapter;
+        if (adapter != null) {
+            if (this.mPagerAdapterObserver == null) {
+                this.mPagerAdapterObserver = new SlidingTabStripLayout.PagerAdapterObserver();
+            }
+
+            adapter.registerDataSetObserver(this.mPagerAdapterObserver);
+        }
+
+    }
+
+    /*
+     * Brings the tabs in line with the observed PagerAdapter, keeping the Tabs and TabViews that still exist.
+     * Each old tab is matched to a page through PagerAdapter.getItemPosition() if the adapter is a
+     * PageObjectProvider and the layout recorded the tab's page object, then by an equal title at the same index,
+     * then by an equal title anywhere and finally by index, in which case only its title is rebound. Unmatched
+     * tabs are removed and unmatched pages get new tabs. Tab tags belong to the app and are never passed to the
+     * adapter.
+     */
+    private void syncTabsWithPagerAdapter() {
+        PagerAdapter adapter = this.mPagerAdapter;
+        int oldCount = this.mTabs.size();
+        int newCount = adapter.getCount();
+        CharSequence[] titles = new CharSequence[newCount];
+        int[] newIndexOfOld = new int[oldCount];
+        int[] oldIndexOfNew = new int[newCount];
+        Arrays.fill(newIndexOfOld, -1);
+        Arrays.fill(oldIndexOfNew, -1);
+
+        int i;
+        for (i = 0; i < newCount; ++i) {
+            titles[i] = adapter.getPageTitle(i);
+        }
+
+        Object[] pageObjects = getPageObjects(adapter);
+        for (i = 0; i < oldCount; ++i) {
+            Object pageObject = ((SlidingTabStripLayout.Tab) this.mTabs.get(i)).mPageObject;
+            if (pageObject != null && pageObjects != null) {
+                int itemPosition = adapter.getItemPosition(pageObject);
+                if (itemPosition == PagerAdapter.POSITION_UNCHANGED) {
+                    itemPosition = i;
                 }
 
-                this.animateToTab(tab.getPosition());
+                if (itemPosition == PagerAdapter.POSITION_NONE) {
+                    newIndexOfOld[i] = -2;
+                } else if (itemPosition >= 0 && itemPosition < newCount && oldIndexOfNew[itemPosition] == -1) {
+                    newIndexOfOld[i] = itemPosition;
+                    oldIndexOfNew[itemPosition] = i;
+                }
             }
-        } else {
-            int newPosition = tab != null ? tab.getPosition() : -1;
-            this.setSelectedTabView(newPosition);
-            if ((this.mSelectedTab == null || this.mSelectedTab.getPosition() == -1) && newPosition != -1) {
-                this.setScrollPosition(newPosition, 0.0F, true);
-            } else {
-                this.animateToTab(newPosition);
+        }
+
+        int common = Math.min(oldCount, newCount);
+        for (i = 0; i < common; ++i) {
+            if (newIndexOfOld[i] == -1 && oldIndexOfNew[i] == -1 && TextUtils.equals(((SlidingTabStripLayout.Tab) this.mTabs.get(i)).getText(), titles[i])) {
+                newIndexOfOld[i] = i;
+                oldIndexOfNew[i] = i;
+            }
+        }
+
+        HashMap<String, ArrayDeque<Integer>> unclaimedPages = new HashMap();
+        for (i = 0; i < newCount; ++i) {
+            if (oldIndexOfNew[i] == -1) {
+                String key = String.valueOf(titles[i]);
+                ArrayDeque<Integer> pages = (ArrayDeque) unclaimedPages.get(key);
+                if (pages == null) {
+                    pages = new ArrayDeque();
+                    unclaimedPages.put(key, pages);
+                }
+
+                pages.add(i);
             }
+        }
 
-            if (this.mSelectedTab != null && this.mOnTabSelectedListener != null) {
-                this.mOnTabSelectedListener.onTabUnselected(this.mSelectedTab);
+        for (i = 0; i < oldCount; ++i) {
+            if (newIndexOfOld[i] == -1) {
+                ArrayDeque<Integer> pages = (ArrayDeque) unclaimedPages.get(String.valueOf(((SlidingTabStripLayout.Tab) this.mTabs.get(i)).getText()));
+                if (pages != null && !pages.isEmpty()) {
+                    int page = ((Integer) pages.poll()).intValue();
+                    newIndexOfOld[i] = page;
+                    oldIndexOfNew[page] = i;
+                }
             }
+        }
 
-            this.mSelectedTab = tab;
-            if (this.mSelectedTab != null && this.mOnTabSelectedListener != null) {
-                this.mOnTabSelectedListener.onTabSelected(this.mSelectedTab);
+        for (i = 0; i < common; ++i) {
+            if (newIndexOfOld[i] == -1 && oldIndexOfNew[i] == -1) {
+                newIndexOfOld[i] = i;
+                oldIndexOfNew[i] = i;
+            }
+        }
+
+        this.applyTabsDiff(titles, pageObjects, newIndexOfOld, oldIndexOfNew);
+        // The pager may already have moved to another page for the change, its current item wins over the kept selection
+        if (this.mViewPager != null) {
+            int currentItem = this.mViewPager.getCurrentItem();
+            if (currentItem < this.mTabs.size() && currentItem != this.getSelectedTabPosition()) {
+                this.selectTab(this.getTabAt(currentItem), false);
             }
         }
 
     }
 
-    private int calculateScrollXForTab(int position, float positionOffset) {
-        if (this.mMode == 0) {
-            View selectedChild = this.mTabStrip.getChildAt(position);
-            View nextChild = position + 1 < this.mTabStrip.getChildCount() ? this.mTabStrip.getChildAt(position + 1) : null;
-            int selectedWidth = selectedChild != null ? selectedChild.getWidth() : 0;
-            int nextWidth = nextChild != null ? nextChild.getWidth() : 0;
-            return (int) ((float) selectedChild.getLeft() + (float) (selectedWidth + nextWidth) * positionOffset * 0.5F + (float) selectedChild.getWidth() * 0.5F - (float) this.getWidth() * 0.5F);
+    // The page objects of a PageObjectProvider adapter, null for any other adapter
+    private static Object[] getPageObjects(PagerAdapter adapter) {
+        if (!(adapter instanceof SlidingTabStripLayout.PageObjectProvider)) {
+            return null;
         } else {
-            return 0;
+            Object[] pageObjects = new Object[adapter.getCount()];
+
+            for (int i = 0; i < pageObjects.length; ++i) {
+                pageObjects[i] = ((SlidingTabStripLayout.PageObjectProvider) adapter).getPageObject(i);
+            }
+
+            return pageObjects;
         }
     }
 
-    private void applyModeAndGravity() {
-        int paddingStart = 0;
-        if (this.mMode == 0) {
-            paddingStart = Math.max(0, this.mContentInsetStart - this.mTabPaddingStart);
-        }
+    private void applyTabsDiff(CharSequence[] titles, Object[] pageObjects, int[] newIndexOfOld, int[] oldIndexOfNew) {
+        int oldCount = newIndexOfOld.length;
+        int newCount = oldIndexOfNew.length;
+        boolean usesTabGeometry = this.mTabStrip.usesTabGeometry();
+        ArrayList<SlidingTabStripLayout.Tab> oldTabs = new ArrayList(this.mTabs);
+        View[] oldViews = new View[oldCount];
+        int selectedPosition = this.getSelectedTabPosition();
+        this.invalidateSelectedTabView();
+        this.beginTabUpdate();
 
-        ViewCompat.setPaddingRelative(this.mTabStrip, paddingStart, 0, 0, 0);
-        switch (this.mMode) {
-            case 0:
-                this.mTabStrip.setGravity(8388611);
-                break;
-            case 1:
-                this.mTabStrip.setGravity(1);
-        }
+        try {
+            int i;
+            if (!usesTabGeometry) {
+                for (i = 0; i < oldCount; ++i) {
+                    oldViews[i] = this.mTabStrip.getChildAt(i);
+                }
 
-        this.updateTabViewsLayoutParams();
-    }
+                this.mTabStrip.removeAllViewsInLayout();
+            }
 
-    private void updateTabViewsLayoutParams() {
-        for (int i = 0; i < this.mTabStrip.getChildCount(); ++i) {
-            View child = this.mTabStrip.getChildAt(i);
-            this.updateTabViewLayoutParams((LinearLayout.LayoutParams) child.getLayoutParams());
-            child.requestLayout();
-        }
+            this.mTabs.clear();
+            for (i = 0; i < oldCount; ++i) {
+                if (newIndexOfOld[i] < 0) {
+                    ((SlidingTabStripLayout.Tab) oldTabs.get(i)).setPosition(-1);
+                    if (i == selectedPosition) {
+                        this.mPendingReselectPosition = i;
+                    }
+                }
+            }
 
-    }
+            for (i = 0; i < newCount; ++i) {
+                int oldIndex = oldIndexOfNew[i];
+                SlidingTabStripLayout.Tab tab;
+                boolean rebind;
+                if (oldIndex >= 0) {
+                    tab = (SlidingTabStripLayout.Tab) oldTabs.get(oldIndex);
+                    rebind = !TextUtils.equals(tab.mText, titles[i]);
+                } else {
+                    tab = this.newTab();
+                    rebind = true;
+                }
 
-    private ColorStateList createColorStateList(int color_state_pressed, int color_state_selected, int color_state_default) {
-        return new ColorStateList(
-                new int[][]{
-                        new int[]{android.R.attr.state_pressed}, //pressed
-                        new int[]{android.R.attr.state_selected}, // enabled
-                        new int[]{} //default
-                },
-                new int[]{
-                        color_state_pressed,
-                        color_state_selected,
-                        color_state_default
+                tab.mText = titles[i];
+                tab.mPageObject = pageObjects != null ? pageObjects[i] : null;
+                if (rebind) {
+                    this.precomputeTabText(tab);
                 }
-        );
+
+                tab.setPosition(i);
+                this.mTabs.add(tab);
+                if (!usesTabGeometry) {
+                    SlidingTabStripLayout.TabView tabView = oldIndex >= 0 ? (SlidingTabStripLayout.TabView) oldViews[oldIndex] : null;
+                    if (tabView == null) {
+                        tabView = this.createTabView(tab);
+                        this.mTabStrip.attachTabView(tabView, i, this.createLayoutParamsForTabs());
+                    } else {
+                        this.mTabStrip.attachTabView(tabView, i, (LinearLayout.LayoutParams) tabView.getLayoutParams());
+                        if (rebind) {
+                            tabView.update();
+                        }
+                    }
+                }
+            }
+
+            if (this.mSelectedTab == null && !this.mTabs.isEmpty()) {
+                this.mPendingSelectedTab = (SlidingTabStripLayout.Tab) this.mTabs.get(0);
+            } else if (this.mSelectedTab != null && this.mSelectedTab.getPosition() != -1) {
+                this.mTabStrip.setIndicatorPositionFromTabPosition(this.mSelectedTab.getPosition(), 0.0F);
+            }
+        } finally {
+            this.commitTabUpdate();
+        }
+
     }
 
-    private ColorStateList loadTextColorFromTextAppearance(int textAppearanceResId) {
-        TypedArray a = this.getContext().obtainStyledAttributes(textAppearanceResId, R.styleable.TextAppearance);
+    public void setTabsFromPagerAdapter(PagerAdapter adapter) {
+        this.beginTabUpdate();
 
-        ColorStateList colorList;
         try {
-            colorList = a.getColorStateList(R.styleable.TextAppearance_android_textColor);
+            this.removeAllTabs();
+            Object[] pageObjects = getPageObjects(adapter);
+            int i = 0;
+
+            for (int count = adapter.getCount(); i < count; ++i) {
+                SlidingTabStripLayout.Tab tab = this.newTab().setText(adapter.getPageTitle(i));
+                tab.mPageObject = pageObjects != null ? pageObjects[i] : null;
+                this.addTab(tab);
+            }
         } finally {
-            a.recycle();
+            this.commitTabUpdate();
         }
 
-        return colorList;
+        this.applyPendingRestoredState();
+
     }
 
+    TabTextAppearance getResolvedTabTextAppearance() {
+        if (this.mResolvedTabTextAppearance == null) {
+            this.mResolvedTabTextAppearance = TabTextAppearance.resolve(this.getContext(), this.mTabTextAppearance);
+        }
 
-    public static class ViewPagerOnTabSelectedListener implements SlidingTabStripLayout.OnTabSelectedListener {
-        private final String LOG_TAG = ViewPagerOnTabSelectedListener.class.getSimpleName();
-        private final ViewPager mViewPager;
+        return this.mResolvedTabTextAppearance;
+    }
 
-        public ViewPagerOnTabSelectedListener(ViewPager viewPager) {
-            this.mViewPager = viewPager;
+    // Only resolved when the selected tab switches to tabSelectedTextAppearance
+    TabTextAppearance getResolvedTabSelectedTextAppearance() {
+        if (!this.isTabSelectedTextBold) {
+            return null;
+        } else {
+            if (this.mResolvedTabSelectedTextAppearance == null) {
+                this.mResolvedTabSelectedTextAppearance = TabTextAppearance.resolve(this.getContext(), this.mTabSelectedTextAppearance);
+            }
+
+            return this.mResolvedTabSelectedTextAppearance;
         }
+    }
 
-        public void onTabSelected(SlidingTabStripLayout.Tab tab) {
-            this.mViewPager.setCurrentItem(tab.getPosition());
+    private void updateAllTabs() {
+        int i = 0;
 
-            //Log.d(this.LOG_TAG, "Called onTabSelected");
+        for (int z = this.mTabs.size(); i < z; ++i) {
+            this.updateTab(i);
         }
 
-        public void onTabUnselected(SlidingTabStripLayout.Tab tab) {
-            //Log.d(this.LOG_TAG, "Called onTabUnSelected");
-        }
+    }
 
-        public void onTabReselected(SlidingTabStripLayout.Tab tab) {
-            //Log.d(this.LOG_TAG, "Called onTabReSelected");
+    // Throw away the current TabViews and create them again for the current virtualization state
+    private void rebuildTabViews() {
+        this.invalidateSelectedTabView();
+        this.mTabStrip.removeAllViews();
+        this.mTabStrip.resetTabViewPool();
+        if (this.mTabStrip.usesTabGeometry()) {
+            this.mTabStrip.notifyTabsChanged();
+        } else {
+            int selectedPosition = this.getSelectedTabPosition();
+            int i = 0;
+
+            for (int count = this.mTabs.size(); i < count; ++i) {
+                this.addTabView((SlidingTabStripLayout.Tab) this.mTabs.get(i), i, i == selectedPosition);
+            }
         }
+
     }
 
-    public static class TabLayoutOnPageChangeListener implements OnPageChangeListener {
-        private final WeakReference<SlidingTabStripLayout> mTabLayoutRef;
-        private int mScrollState;
+    SlidingTabStripLayout.TabView getTabViewAt(int position) {
+        return this.mTabStrip.getTabViewAt(position);
+    }
 
-        public TabLayoutOnPageChangeListener(SlidingTabStripLayout tabLayout) {
-            this.mTabLayoutRef = new WeakReference(tabLayout);
-        }
+    // Called after every strip layout, inflation swaps views in so it cannot run inside the layout pass itself
+    void scheduleCustomViewInflation() {
+        if (this.mHasPendingCustomViews) {
+            if (this.mInflateVisibleCustomViewsRunnable == null) {
+                this.mInflateVisibleCustomViewsRunnable = new Runnable() {
+                    public void run() {
+                        SlidingTabStripLayout.this.inflateVisibleCustomViews();
+                    }
+                };
+            }
 
-        public void onPageScrollStateChanged(int state) {
-            this.mScrollState = state;
+            this.removeCallbacks(this.mInflateVisibleCustomViewsRunnable);
+            this.post(this.mInflateVisibleCustomViewsRunnable);
         }
 
-        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
-            if (tabLayout != null) {
-                tabLayout.setScrollPosition(position, positionOffset, this.mScrollState == 1);
+    }
+
+    // Inflates the pending custom views of the tabs in the visible window, or starts inflating them in the background
+    private void inflateVisibleCustomViews() {
+        if (this.mHasPendingCustomViews && !this.mTabStrip.isFlat() && !this.isHoldingTabUpdates()) {
+            int last = Math.min(this.getLastVisibleTabPosition(), this.mTabs.size() - 1);
+
+            for (int i = Math.max(0, this.getFirstVisibleTabPosition()); i <= last; ++i) {
+                SlidingTabStripLayout.Tab tab = (SlidingTabStripLayout.Tab) this.mTabs.get(i);
+                if (tab.isCustomViewPending() && !tab.mCustomViewInflating) {
+                    if (this.mAsyncCustomViewInflationEnabled) {
+                        this.inflateCustomViewAsync(tab);
+                    } else {
+                        tab.mCustomView = LayoutInflater.from(this.getContext()).inflate(tab.mCustomViewLayoutResId, (ViewGroup) null);
+                        this.updateTab(i);
+                    }
+                }
+            }
+
+            boolean pending = false;
+            int i = 0;
+
+            for (int count = this.mTabs.size(); i < count && !pending; ++i) {
+                pending = ((SlidingTabStripLayout.Tab) this.mTabs.get(i)).isCustomViewPending();
             }
 
+            this.mHasPendingCustomViews = pending;
         }
+    }
 
-        public void onPageSelected(int position) {
-            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
-            if (tabLayout != null) {
-                tabLayout.getTabAt(position).select();
+    private void inflateCustomViewAsync(final SlidingTabStripLayout.Tab tab) {
+        if (this.mAsyncLayoutInflater == null) {
+            this.mAsyncLayoutInflater = new AsyncLayoutInflater(this.getContext());
+        }
+
+        final int layoutResId = tab.mCustomViewLayoutResId;
+        tab.mCustomViewInflating = true;
+        this.mAsyncLayoutInflater.inflate(layoutResId, (ViewGroup) null, new AsyncLayoutInflater.OnInflateFinishedListener() {
+            public void onInflateFinished(View view, int resid, ViewGroup parent) {
+                tab.mCustomViewInflating = false;
+                if (tab.mCustomViewLayoutResId == layoutResId && tab.mCustomView == null) {
+                    tab.mCustomView = view;
+                    if (tab.getPosition() >= 0) {
+                        SlidingTabStripLayout.this.requestTabUpdate(tab);
+                    }
+                } else if (tab.isCustomViewPending()) {
+                    // The tab was given another layout meanwhile
+                    SlidingTabStripLayout.this.inflateVisibleCustomViews();
+                }
             }
+        });
+    }
 
+    private SlidingTabStripLayout.TabView createTabView(SlidingTabStripLayout.Tab tab) {
+        SlidingTabStripLayout.TabView tabView = new SlidingTabStripLayout.TabView(this.getContext(), tab);
+        this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_TAB_VIEW_CREATED);
+        tabView.setFocusable(true);
+        if (this.mTabClickListener == null) {
+            this.mTabClickListener = new OnClickListener() {
+                public void onClick(View view) {
+                    SlidingTabStripLayout.TabView tabView = (SlidingTabStripLayout.TabView) view;
+                    tabView.getTab().select();
+                }
+            };
         }
+
+        tabView.setOnClickListener(this.mTabClickListener);
+        return tabView;
     }
 
-    /*
-     * <p>
-     * The colors can be customized in two ways. The first and simplest is to provide an array of
-     * colors via {@link SlidingTabStripLayout.SlidingTabStrip.setSelectedIndicatorColor(Color)} Color(android.graphics.Color)}.
-     * <p>*/
-    private class SlidingTabStrip extends LinearLayout {
-        private int mSelectedIndicatorHeight;
-        private int mUnderlineHeight;
-        private final Paint mSelectedIndicatorPaint;
-        private final Paint mUnderlinePaint;
-        private int mSelectedPosition = -1;
-        private float mSelectionOffset;
-        private int mIndicatorLeft = -1;
-        private int mIndicatorRight = -1;
+    private void configureTab(SlidingTabStripLayout.Tab tab, int position) {
+        this.invalidateSelectedTabView();
+        tab.setPosition(position);
+        this.mTabs.add(position, tab);
+        if (this.mTabUpdateDepth > 0) {
+            this.markTabPositionsDirty(position + 1);
+            return;
+        }
 
-        SlidingTabStrip(Context context) {
-            super(context);
-            this.setWillNotDraw(false);
-            this.mSelectedIndicatorPaint = new Paint();
-            this.mUnderlinePaint = new Paint();
+        int count = this.mTabs.size();
 
-            //Bottom padding for the tabs container parent view to show indicator and underline
-            setTabsContainerParentViewPaddings();
+        for (int i = position + 1; i < count; ++i) {
+            ((SlidingTabStripLayout.Tab) this.mTabs.get(i)).setPosition(i);
         }
 
-        void setTabsContainerParentViewPaddings() {
-            int bottomMargin = mSelectedIndicatorHeight >= mUnderlineHeight ? mSelectedIndicatorHeight : mUnderlineHeight;
-            setPadding(getPaddingLeft(), getPaddingTop(), getPaddingRight(), bottomMargin);
+        if (this.mTabStrip.usesTabGeometry()) {
+            this.mTabStrip.notifyTabsChanged();
         }
 
-        void setSelectedIndicatorColor(int color) {
-            this.mSelectedIndicatorPaint.setColor(color);
-            this.mSelectedIndicatorPaint.setAntiAlias(true);
-            ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    private void updateTab(int position) {
+        if (this.mTabUpdateDepth > 0) {
+            // Positions may be stale until the batch is committed
+            this.mTabContentDirty = true;
+            return;
         }
 
-        void setSelectedIndicatorHeight(int height) {
-            this.mSelectedIndicatorHeight = height;
-            ViewCompat.postInvalidateOnAnimation(this);
+        SlidingTabStripLayout.TabView view = this.getTabViewAt(position);
+        boolean sizeKept = view != null && view.update();
+        if (this.mTabStrip.usesTabGeometry() && !sizeKept) {
+            this.mTabStrip.invalidateTabWidth(position);
         }
 
-        void setIndicatorPositionFromTabPosition(int position, float positionOffset) {
-            if (!SlidingTabStripLayout.isAnimationRunning(this.getAnimation())) {
-                this.mSelectedPosition = position;
-                this.mSelectionOffset = positionOffset;
-                this.updateIndicatorPosition();
+    }
+
+    /**
+     * When enabled, the default, tab content changes made while the pager set up with
+     * {@link #setupWithViewPager(ViewPager)} is dragged or settling are held, along with the inflation of custom
+     * views, and applied in one batch once the pager is idle. Use {@link #applyPendingTabUpdates()} for a change
+     * that cannot wait.
+     */
+    public void setDeferTabUpdatesWhileScrolling(boolean defer) {
+        if (this.mDeferTabUpdatesWhileScrolling != defer) {
+            this.mDeferTabUpdatesWhileScrolling = defer;
+            if (!defer) {
+                this.onTabUpdatesReleased();
             }
         }
 
-        void setUnderlineColor(int color) {
-            this.mUnderlinePaint.setColor(color);
-            this.mUnderlinePaint.setAntiAlias(true);
-            ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    public boolean isDeferTabUpdatesWhileScrolling() {
+        return this.mDeferTabUpdatesWhileScrolling;
+    }
+
+    /**
+     * Applies every tab change still waiting for the next frame or for the pager to come to rest right now.
+     */
+    public void applyPendingTabUpdates() {
+        this.applyTabUpdates();
+    }
+
+    private boolean isHoldingTabUpdates() {
+        return this.mDeferTabUpdatesWhileScrolling && this.mPagerScrollState != 0;
+    }
+
+    void onPagerScrollStateChanged(int state) {
+        boolean held = this.isHoldingTabUpdates();
+        this.mPagerScrollState = state;
+        if (state == 0) {
+            this.resetPagePrefetch();
         }
 
-        void setUnderlineHeight(int height) {
-            this.mUnderlineHeight = height;
-            ViewCompat.postInvalidateOnAnimation(this);
+        if (held && !this.isHoldingTabUpdates()) {
+            this.onTabUpdatesReleased();
         }
 
-        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-            if (MeasureSpec.getMode(widthMeasureSpec) == 1073741824) {
-                if (SlidingTabStripLayout.this.mMode == 1 && SlidingTabStripLayout.this.mTabGravity == 1) {
-                    int count = this.getChildCount();
-                    int unspecifiedSpec = MeasureSpec.makeMeasureSpec(0, 0);
-                    int largestTabWidth = 0;
-                    int gutter = 0;
+    }
 
-                    int i;
-                    View child;
-                    for (i = count; gutter < i; ++gutter) {
-                        child = this.getChildAt(gutter);
-                        child.measure(unspecifiedSpec, heightMeasureSpec);
-                        largestTabWidth = Math.max(largestTabWidth, child.getMeasuredWidth());
+    private void onTabUpdatesReleased() {
+        this.applyTabUpdates();
+        this.scheduleCustomViewInflation();
+    }
+
+    // For changes that affect every tab's appearance, such as the text colors
+    private void requestAllTabsUpdate() {
+        if (this.mTabUpdateDepth == 0 && this.isHoldingTabUpdates()) {
+            this.mAllTabsUpdatePending = true;
+        } else {
+            this.updateAllTabs();
+        }
+
+    }
+
+    /**
+     * Queues an update of the tab's view for the next animation frame, so any number of property changes made to
+     * a tab within a frame cost a single update. Pending updates are also applied before this layout measures,
+     * unless they are held while the pager scrolls.
+     */
+    void requestTabUpdate(SlidingTabStripLayout.Tab tab) {
+        if (this.mTabUpdateDepth > 0) {
+            this.mTabContentDirty = true;
+        } else if (!tab.mUpdatePending) {
+            tab.mUpdatePending = true;
+            this.mPendingTabUpdates.add(tab);
+            if (this.mPendingTabUpdates.size() == 1 && !this.isHoldingTabUpdates()) {
+                if (this.mFlushTabUpdatesRunnable == null) {
+                    this.mFlushTabUpdatesRunnable = new Runnable() {
+                        public void run() {
+                            SlidingTabStripLayout.this.flushPendingTabUpdates();
+                        }
+                    };
+                }
+
+                ViewCompat.postOnAnimation(this, this.mFlushTabUpdatesRunnable);
+            }
+        }
+
+    }
+
+    void flushPendingTabUpdates() {
+        if (!this.isHoldingTabUpdates()) {
+            this.applyTabUpdates();
+        }
+
+    }
+
+    private void applyTabUpdates() {
+        int count = this.mPendingTabUpdates.size();
+        if (count > 0) {
+            this.removeCallbacks(this.mFlushTabUpdatesRunnable);
+
+            for (int i = 0; i < count; ++i) {
+                SlidingTabStripLayout.Tab tab = (SlidingTabStripLayout.Tab) this.mPendingTabUpdates.get(i);
+                tab.mUpdatePending = false;
+                if (tab.getPosition() >= 0 && !this.mAllTabsUpdatePending) {
+                    this.updateTab(tab.getPosition());
+                }
+            }
+
+            this.mPendingTabUpdates.clear();
+        }
+
+        if (this.mAllTabsUpdatePending) {
+            this.mAllTabsUpdatePending = false;
+            this.updateAllTabs();
+        }
+
+    }
+
+    private void addTabView(SlidingTabStripLayout.Tab tab, boolean setSelected) {
+        if (this.mTabStrip.usesTabGeometry()) {
+            return;
+        }
+
+        SlidingTabStripLayout.TabView tabView = this.createTabView(tab);
+        if (this.mTabUpdateDepth > 0) {
+            this.mTabStrip.attachTabView(tabView, this.mTabStrip.getChildCount(), this.createLayoutParamsForTabs());
+        } else {
+            this.mTabStrip.addView(tabView, this.createLayoutParamsForTabs());
+        }
+
+        if (setSelected) {
+            tabView.setSelected(true);
+        }
+
+    }
+
+    private void addTabView(SlidingTabStripLayout.Tab tab, int position, boolean setSelected) {
+        if (this.mTabStrip.usesTabGeometry()) {
+            return;
+        }
+
+        SlidingTabStripLayout.TabView tabView = this.createTabView(tab);
+        if (this.mTabUpdateDepth > 0) {
+            this.mTabStrip.attachTabView(tabView, position, this.createLayoutParamsForTabs());
+        } else {
+            this.mTabStrip.addView(tabView, position, this.createLayoutParamsForTabs());
+        }
+
+        if (setSelected) {
+            tabView.setSelected(true);
+        }
+
+    }
+
+    private LinearLayout.LayoutParams createLayoutParamsForTabs() {
+        LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(-2, -1);
+        this.updateTabViewLayoutParams(lp);
+        return lp;
+    }
+
+    private void updateTabViewLayoutParams(LinearLayout.LayoutParams lp) {
+        if (this.mMode == 1 && this.mTabGravity == 0) {
+            lp.width = 0;
+            lp.weight = 1.0F;
+        } else {
+            lp.width = -2;
+            lp.weight = 0.0F;
+        }
+
+    }
+
+    private int dpToPx(int dps) {
+        return Math.round(this.getResources().getDisplayMetrics().density * (float) dps);
+    }
+
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = this.beginMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_MEASURE);
+        this.measureLayout(widthMeasureSpec, heightMeasureSpec);
+        this.endMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_MEASURE, start);
+    }
+
+    private void measureLayout(int widthMeasureSpec, int heightMeasureSpec) {
+        // Tab changes queued for the next frame would otherwise be measured a frame late and cause a second pass
+        this.flushPendingTabUpdates();
+        switch (MeasureSpec.getMode(heightMeasureSpec)) {
+            case -2147483648:
+                heightMeasureSpec = MeasureSpec.makeMeasureSpec(Math.min(this.dpToPx(48), MeasureSpec.getSize(heightMeasureSpec)), 1073741824);
+                break;
+            case 0:
+                heightMeasureSpec = MeasureSpec.makeMeasureSpec(this.dpToPx(48), 1073741824);
+        }
+
+        // The tabs are clamped while the strip measures, so the max width has to be known before it does
+        if (MeasureSpec.getMode(widthMeasureSpec) != 0) {
+            int tabMaxWidth = this.mRequestedTabMaxWidth;
+            int specTabMaxWidth = MeasureSpec.getSize(widthMeasureSpec) - this.dpToPx(56);
+            if (tabMaxWidth == 0 || tabMaxWidth > specTabMaxWidth) {
+                tabMaxWidth = specTabMaxWidth;
+            }
+
+            if (tabMaxWidth != this.mTabMaxWidth) {
+                this.mTabMaxWidth = tabMaxWidth;
+                // Cached tab widths were clamped with the previous max width
+                this.mTabStrip.invalidateTabWidths();
+            }
+        }
+
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        int defaultTabMaxWidth;
+        if (this.mMode == 1 && this.getChildCount() == 1) {
+            View maxTabWidth = this.getChildAt(0);
+            defaultTabMaxWidth = this.getMeasuredWidth();
+            if (maxTabWidth.getMeasuredWidth() > defaultTabMaxWidth) {
+                int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec, this.getPaddingTop() + this.getPaddingBottom(), maxTabWidth.getLayoutParams().height);
+                int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(defaultTabMaxWidth, 1073741824);
+                maxTabWidth.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            }
+        }
+
+    }
+
+    private void removeTabViewAt(int position) {
+        if (this.mTabStrip.usesTabGeometry()) {
+            if (this.mTabUpdateDepth == 0) {
+                this.mTabStrip.notifyTabsChanged();
+            }
+            return;
+        }
+
+        if (this.mTabUpdateDepth > 0) {
+            this.mTabStrip.removeViewsInLayout(position, 1);
+            return;
+        }
+
+        this.mTabStrip.removeViewAt(position);
+        this.requestLayout();
+    }
+
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        if (this.mRestoredScrollX >= 0) {
+            this.scrollTo(this.mRestoredScrollX, 0);
+            this.mRestoredScrollX = -1;
+        }
+
+    }
+
+    protected Parcelable onSaveInstanceState() {
+        SlidingTabStripLayout.SavedState state = new SlidingTabStripLayout.SavedState(super.onSaveInstanceState());
+        if (this.mTabs.isEmpty() && this.mPendingRestoredState != null) {
+            // Still waiting for its tabs, keep it for the next instance
+            state.selectedPosition = this.mPendingRestoredState.selectedPosition;
+            state.scrollX = this.mPendingRestoredState.scrollX;
+            state.texts = this.mPendingRestoredState.texts;
+            state.tags = this.mPendingRestoredState.tags;
+            return state;
+        }
+
+        int count = this.mTabs.size();
+        state.selectedPosition = this.getSelectedTabPosition();
+        state.scrollX = this.getScrollX();
+        state.texts = new CharSequence[count];
+        state.tags = new Object[count];
+
+        for (int i = 0; i < count; ++i) {
+            SlidingTabStripLayout.Tab tab = (SlidingTabStripLayout.Tab) this.mTabs.get(i);
+            state.texts[i] = tab.getText();
+            state.tags[i] = SlidingTabStripLayout.SavedState.canWriteTag(tab.getTag()) ? tab.getTag() : null;
+        }
+
+        return state;
+    }
+
+    /*
+     * Goes straight to the saved selection and scroll offset, without animating and without telling the tab
+     * selected listener, so a bound pager is not moved. When no tabs were added yet nothing is created, the state
+     * is held until setupWithViewPager() or setTabsFromPagerAdapter() builds the tabs and applied to them then.
+     */
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SlidingTabStripLayout.SavedState)) {
+            super.onRestoreInstanceState(state);
+        } else {
+            SlidingTabStripLayout.SavedState saved = (SlidingTabStripLayout.SavedState) state;
+            super.onRestoreInstanceState(saved.getSuperState());
+            if (this.mTabs.isEmpty()) {
+                this.mPendingRestoredState = saved.texts.length > 0 ? saved : null;
+            } else {
+                this.mPendingRestoredState = null;
+                this.applyRestoredState(saved);
+            }
+        }
+    }
+
+    private void applyPendingRestoredState() {
+        if (this.mPendingRestoredState != null && !this.mTabs.isEmpty()) {
+            SlidingTabStripLayout.SavedState saved = this.mPendingRestoredState;
+            this.mPendingRestoredState = null;
+            this.applyRestoredState(saved);
+        }
+
+    }
+
+    // Tags only go back to tabs that have none and still show the saved text
+    private void applyRestoredState(SlidingTabStripLayout.SavedState saved) {
+        int count = Math.min(saved.texts.length, this.mTabs.size());
+
+        for (int i = 0; i < count; ++i) {
+            SlidingTabStripLayout.Tab tab = (SlidingTabStripLayout.Tab) this.mTabs.get(i);
+            if (tab.getTag() == null && TextUtils.equals(tab.getText(), saved.texts[i])) {
+                tab.setTag(saved.tags[i]);
+            }
+        }
+
+        if (saved.selectedPosition >= 0 && saved.selectedPosition < this.mTabs.size() && saved.selectedPosition != this.getSelectedTabPosition()) {
+            this.selectTab(this.getTabAt(saved.selectedPosition), false, false);
+        }
+
+        if (ViewCompat.isLaidOut(this) && !this.isLayoutRequested()) {
+            this.scrollTo(saved.scrollX, 0);
+        } else {
+            this.mRestoredScrollX = saved.scrollX;
+        }
+    }
+
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (this.mIndicatorLayerEnabled) {
+            int saveCount = canvas.save();
+            canvas.translate((float) this.mTabStrip.getLeft(), (float) this.mTabStrip.getTop());
+            this.mTabStrip.drawIndicator(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+
+    }
+
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // The pager may never report the end of its gesture to a detached layout, updates must not stay held
+        this.onPagerScrollStateChanged(0);
+    }
+
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        if (this.mTabStrip.isFlat()) {
+            this.mTabStrip.onFlatScrollChanged();
+        } else if (this.mTabStrip.isVirtualizing()) {
+            this.mTabStrip.populateTabViews();
+        }
+
+        if (this.mHasPendingCustomViews) {
+            this.inflateVisibleCustomViews();
+        }
+
+    }
+
+    private void animateToTab(int newPosition) {
+        if (newPosition != -1) {
+            if (this.getWindowToken() != null && ViewCompat.isLaidOut(this)) {
+                // Retargets the running scroll, if any, from wherever it got to
+                int startScrollX = this.getScrollX();
+                int targetScrollX = this.calculateScrollXForTab(newPosition, 0.0F);
+                if (this.mScrollAnimator != null && this.mScrollAnimator.isRunning()) {
+                    this.mScrollAnimator.cancel();
+                    this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_CANCEL);
+                }
+
+                if (startScrollX != targetScrollX) {
+                    this.ensureScrollAnimator();
+                    this.mScrollAnimatorStartX = startScrollX;
+                    this.mScrollAnimatorTargetX = targetScrollX;
+                    this.mScrollAnimator.start();
+                    this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_START);
+                }
+
+                this.mTabStrip.animateIndicatorToPosition(newPosition, ANIMATION_DURATION);
+            } else {
+                this.setScrollPosition(newPosition, 0.0F, true);
+            }
+        }
+    }
+
+    // One scroll animator per layout, it animates a fraction so that retargeting it never allocates values
+    private void ensureScrollAnimator() {
+        if (this.mScrollAnimator == null) {
+            this.mScrollAnimator = ViewUtils.createAnimator();
+            this.mScrollAnimator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
+            this.mScrollAnimator.setDuration(ANIMATION_DURATION);
+            this.mScrollAnimator.setFloatValues(0.0F, 1.0F);
+            this.mScrollAnimator.addUpdateListener(new AnimatorUpdateListener() {
+                public void onAnimationUpdate(ValueAnimatorCompat animator) {
+                    SlidingTabStripLayout.this.scrollTo(AnimationUtils.lerp(SlidingTabStripLayout.this.mScrollAnimatorStartX, SlidingTabStripLayout.this.mScrollAnimatorTargetX, animator.getAnimatedFraction()), 0);
+                }
+            });
+        }
+
+    }
+
+    private void setSelectedTabView(int position) {
+        if (this.mTabStrip.isFlat()) {
+            // The flat strip draws the selected state itself
+            if (this.mSelectedTabViewStale || position != this.mSelectedTabViewPosition) {
+                this.mTabStrip.invalidate();
+            }
+
+            this.mSelectedTabViewStale = false;
+        } else if (this.mSelectedTabViewStale) {
+            // The tabs changed structurally since the last call, walk every TabView once
+            int tabCount = this.mTabStrip.getChildCount();
+
+            for (int i = 0; i < tabCount; ++i) {
+                SlidingTabStripLayout.TabView child = (SlidingTabStripLayout.TabView) this.mTabStrip.getChildAt(i);
+                boolean selected = child.getTab().getPosition() == position;
+                if (child.isSelected() != selected) {
+                    child.setSelected(selected);
+                }
+            }
+
+            this.mSelectedTabViewStale = false;
+        } else if (position != this.mSelectedTabViewPosition) {
+            SlidingTabStripLayout.TabView previous = this.getTabViewAt(this.mSelectedTabViewPosition);
+            if (previous != null) {
+                previous.setSelected(false);
+            }
+
+            SlidingTabStripLayout.TabView next = this.getTabViewAt(position);
+            if (next != null) {
+                next.setSelected(true);
+            }
+        }
+
+        this.mSelectedTabViewPosition = position;
+    }
+
+    private void invalidateSelectedTabView() {
+        this.mSelectedTabViewStale = true;
+    }
+
+    boolean isTabViewSelected(int position) {
+        return this.mSelectedTabViewStale ? position == this.getSelectedTabPosition() : position == this.mSelectedTabViewPosition;
+    }
+
+    void selectTab(SlidingTabStripLayout.Tab tab) {
+        this.selectTab(tab, true);
+    }
+
+    // Without animate the indicator and the scroll go straight to the new tab
+    void selectTab(SlidingTabStripLayout.Tab tab, boolean animate) {
+        this.selectTab(tab, animate, true);
+    }
+
+    // Without notify the tab selected listener is not told, for selections that only bring back a saved state
+    private void selectTab(SlidingTabStripLayout.Tab tab, boolean animate, boolean notify) {
+        SlidingTabStripLayout.OnTabSelectedListener listener = notify ? this.mOnTabSelectedListener : null;
+        if (this.mSelectedTab == tab) {
+            if (this.mSelectedTab != null) {
+                if (listener != null) {
+                    listener.onTabReselected(this.mSelectedTab);
+                }
+
+                if (animate) {
+                    this.animateToTab(tab.getPosition());
+                }
+            }
+        } else {
+            int newPosition = tab != null ? tab.getPosition() : -1;
+            this.setSelectedTabView(newPosition);
+            if ((!animate || this.mSelectedTab == null || this.mSelectedTab.getPosition() == -1) && newPosition != -1) {
+                this.setScrollPosition(newPosition, 0.0F, true);
+            } else {
+                this.animateToTab(newPosition);
+            }
+
+            if (this.mSelectedTab != null && listener != null) {
+                listener.onTabUnselected(this.mSelectedTab);
+            }
+
+            this.mSelectedTab = tab;
+            this.resetPagePrefetch();
+            if (this.mSelectedTab != null && listener != null) {
+                listener.onTabSelected(this.mSelectedTab);
+            }
+        }
+
+    }
+
+    private int calculateScrollXForTab(int position, float positionOffset) {
+        if (this.mMode == 0) {
+            // Works from the strip's offset index so that tabs without a materialized view can be targeted
+            return TabLayoutEngine.centeredScrollX(this.mTabStrip.getTabOffsets().getCenter(position, positionOffset), this.getWidth());
+        } else {
+            return 0;
+        }
+    }
+
+    private void applyModeAndGravity() {
+        int paddingStart = 0;
+        if (this.mMode == 0) {
+            paddingStart = Math.max(0, this.mContentInsetStart - this.mTabPaddingStart);
+        }
+
+        ViewCompat.setPaddingRelative(this.mTabStrip, paddingStart, 0, 0, 0);
+        switch (this.mMode) {
+            case 0:
+                this.mTabStrip.setGravity(8388611);
+                break;
+            case 1:
+                this.mTabStrip.setGravity(1);
+        }
+
+        this.updateTabViewsLayoutParams();
+    }
+
+    private void updateTabViewsLayoutParams() {
+        for (int i = 0; i < this.mTabStrip.getChildCount(); ++i) {
+            View child = this.mTabStrip.getChildAt(i);
+            this.updateTabViewLayoutParams((LinearLayout.LayoutParams) child.getLayoutParams());
+            child.requestLayout();
+        }
+
+    }
+
+    static ColorStateList createColorStateList(int color_state_pressed, int color_state_selected, int color_state_default) {
+        return new ColorStateList(
+                new int[][]{
+                        new int[]{android.R.attr.state_pressed}, //pressed
+                        new int[]{android.R.attr.state_selected}, // enabled
+                        new int[]{} //default
+                },
+                new int[]{
+                        color_state_pressed,
+                        color_state_selected,
+                        color_state_default
+                }
+        );
+    }
+
+
+
+    private class PagerAdapterObserver extends DataSetObserver {
+        public void onChanged() {
+            if (SlidingTabStripLayout.this.mPagerAdapter != null) {
+                SlidingTabStripLayout.this.syncTabsWithPagerAdapter();
+            }
+        }
+
+        public void onInvalidated() {
+            this.onChanged();
+        }
+    }
+
+    public static class ViewPagerOnTabSelectedListener implements SlidingTabStripLayout.OnTabSelectedListener {
+        public static final int DEFAULT_SMOOTH_SCROLL_DISTANCE = 1;
+        private static final int CROSSFADE_HALF_DURATION = 100;
+        private final String LOG_TAG = ViewPagerOnTabSelectedListener.class.getSimpleName();
+        private final ViewPager mViewPager;
+        private int mSmoothScrollDistance = DEFAULT_SMOOTH_SCROLL_DISTANCE;
+        private boolean mJumpCrossfadeEnabled;
+        // Page a running crossfade switches to once the pager faded out, -1 when none is running
+        private int mCrossfadeTarget = -1;
+        private ViewPropertyAnimatorListenerAdapter mCrossfadeSwitch;
+
+        public ViewPagerOnTabSelectedListener(ViewPager viewPager) {
+            this.mViewPager = viewPager;
+        }
+
+        /**
+         * Pages up to {@code pages} away from the current one are scrolled to smoothly, farther ones are jumped to
+         * directly so that the pager never scrolls through, and instantiates, the pages in between. The tab
+         * indicator animates either way. Defaults to {@link #DEFAULT_SMOOTH_SCROLL_DISTANCE}, use
+         * {@link Integer#MAX_VALUE} to always scroll smoothly.
+         */
+        public void setSmoothScrollDistance(int pages) {
+            this.mSmoothScrollDistance = pages;
+        }
+
+        public int getSmoothScrollDistance() {
+            return this.mSmoothScrollDistance;
+        }
+
+        // When enabled, a direct jump fades the pager out and the new page in instead of cutting
+        public void setJumpCrossfadeEnabled(boolean enabled) {
+            this.mJumpCrossfadeEnabled = enabled;
+        }
+
+        public boolean isJumpCrossfadeEnabled() {
+            return this.mJumpCrossfadeEnabled;
+        }
+
+        public void onTabSelected(SlidingTabStripLayout.Tab tab) {
+            int position = tab.getPosition();
+            if (this.mCrossfadeTarget != -1) {
+                // Still fading out, switch to the latest tab once it is done
+                this.mCrossfadeTarget = position;
+            } else if (position == this.mViewPager.getCurrentItem()) {
+                // Already there, the selection followed the pager
+                return;
+            } else if (Math.abs(position - this.mViewPager.getCurrentItem()) <= this.mSmoothScrollDistance) {
+                this.mViewPager.setCurrentItem(position, true);
+            } else if (this.mJumpCrossfadeEnabled && ViewCompat.isAttachedToWindow(this.mViewPager)) {
+                this.crossfadeTo(position);
+            } else {
+                this.mViewPager.setCurrentItem(position, false);
+            }
+
+            //Log.d(this.LOG_TAG, "Called onTabSelected");
+        }
+
+        private void crossfadeTo(int position) {
+            if (this.mCrossfadeSwitch == null) {
+                // Also runs when the fade out is cancelled, so the pager always ends up on the selected page
+                this.mCrossfadeSwitch = new ViewPropertyAnimatorListenerAdapter() {
+                    public void onAnimationEnd(View view) {
+                        int target = ViewPagerOnTabSelectedListener.this.mCrossfadeTarget;
+                        ViewPagerOnTabSelectedListener.this.mCrossfadeTarget = -1;
+                        ViewPagerOnTabSelectedListener.this.mViewPager.setCurrentItem(target, false);
+                        ViewCompat.animate(view).alpha(1.0F).setDuration((long) CROSSFADE_HALF_DURATION).setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR).setListener((ViewPropertyAnimatorListener) null);
+                    }
+                };
+            }
+
+            this.mCrossfadeTarget = position;
+            ViewCompat.animate(this.mViewPager).alpha(0.0F).setDuration((long) CROSSFADE_HALF_DURATION).setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR).setListener(this.mCrossfadeSwitch);
+        }
+
+        public void onTabUnselected(SlidingTabStripLayout.Tab tab) {
+            //Log.d(this.LOG_TAG, "Called onTabUnSelected");
+        }
+
+        public void onTabReselected(SlidingTabStripLayout.Tab tab) {
+            //Log.d(this.LOG_TAG, "Called onTabReSelected");
+        }
+    }
+
+    public static class TabLayoutOnPageChangeListener implements OnPageChangeListener {
+        private final WeakReference<SlidingTabStripLayout> mTabLayoutRef;
+        private int mScrollState;
+        private int mLastScrolledPosition = -1;
+        private int mLastScrolledOffsetPixels = -1;
+
+        public TabLayoutOnPageChangeListener(SlidingTabStripLayout tabLayout) {
+            this.mTabLayoutRef = new WeakReference(tabLayout);
+        }
+
+        public void onPageScrollStateChanged(int state) {
+            this.mScrollState = state;
+            // The first frame of the new state is always applied, updateSelectedText may differ from the last one
+            this.mLastScrolledPosition = -1;
+            this.mLastScrolledOffsetPixels = -1;
+            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
+            if (tabLayout != null) {
+                tabLayout.onPagerScrollStateChanged(state);
+            }
+
+        }
+
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
+            // The pager did not move a whole pixel since the last frame, nothing the strip shows can have changed
+            if (position == this.mLastScrolledPosition && positionOffsetPixels == this.mLastScrolledOffsetPixels) {
+                return;
+            }
+
+            this.mLastScrolledPosition = position;
+            this.mLastScrolledOffsetPixels = positionOffsetPixels;
+            if (tabLayout != null) {
+                if (!tabLayout.applyScrollPosition(position, positionOffset, this.mScrollState == 1)) {
+                    // Not shown yet, so the same frame must not be dropped as a duplicate once it can be
+                    this.mLastScrolledPosition = -1;
+                    this.mLastScrolledOffsetPixels = -1;
+                }
+
+                if (this.mScrollState == 1) {
+                    tabLayout.onPageDragged(position, positionOffset);
+                }
+            }
+
+        }
+
+        public void onPageSelected(int position) {
+            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
+            // The pager reports the page before the layout sees the adapter change, syncTabsWithPagerAdapter() selects it then
+            if (tabLayout != null && position < tabLayout.getTabCount() && position != tabLayout.getSelectedTabPosition()) {
+                tabLayout.getTabAt(position).select();
+            }
+
+        }
+    }
+
+    // Held by the pager, so like TabLayoutOnPageChangeListener it must not keep the layout alive
+    private static class ViewPagerAttachListener implements View.OnAttachStateChangeListener {
+        private final WeakReference<SlidingTabStripLayout> mTabLayoutRef;
+
+        ViewPagerAttachListener(SlidingTabStripLayout tabLayout) {
+            this.mTabLayoutRef = new WeakReference(tabLayout);
+        }
+
+        public void onViewAttachedToWindow(View view) {
+        }
+
+        // A detaching pager aborts its scroll without reporting SCROLL_STATE_IDLE
+        public void onViewDetachedFromWindow(View view) {
+            SlidingTabStripLayout tabLayout = (SlidingTabStripLayout) this.mTabLayoutRef.get();
+            if (tabLayout != null && tabLayout.mPageChangeListener != null) {
+                tabLayout.mPageChangeListener.onPageScrollStateChanged(0);
+            }
+
+        }
+    }
+
+    /*
+     * <p>
+     * The colors can be customized in two ways. The first and simplest is to provide an array of
+     * colors via {@link SlidingTabStripLayout.SlidingTabStrip.setSelectedIndicatorColor(Color)} Color(android.graphics.Color)}.
+     * <p>*/
+    private class SlidingTabStrip extends LinearLayout {
+        private int mSelectedIndicatorHeight;
+        private int mUnderlineHeight;
+        private final Paint mSelectedIndicatorPaint;
+        private final Paint mUnderlinePaint;
+        private int mSelectedPosition = -1;
+        private float mSelectionOffset;
+        // Kept in floats so that the indicator follows the pager with sub-pixel precision
+        private float mIndicatorLeft = -1.0F;
+        private float mIndicatorRight = -1.0F;
+        private float mIndicatorRedrawThreshold = DEFAULT_INDICATOR_REDRAW_THRESHOLD;
+        // Preallocated so that drawing and invalidating the indicator never allocates
+        private final RectF mIndicatorRect = new RectF();
+        private final RectF mUnderlineRect = new RectF();
+        // The one indicator animator of this strip, retargeted in place when a transition is interrupted
+        private ValueAnimatorCompat mIndicatorAnimator;
+        private int mIndicatorAnimatorPosition = -1;
+        private float mIndicatorStartLeft;
+        private float mIndicatorStartRight;
+        private float mIndicatorTargetLeft;
+        private float mIndicatorTargetRight;
+        private SlidingTabStripLayout.SlidingTabStrip.IndicatorSpringDriver mIndicatorSpringDriver;
+
+        // Virtualized mode state, the children are the TabViews for positions [mFirstTabViewPosition, mFirstTabViewPosition + childCount)
+        private final ArrayList<SlidingTabStripLayout.TabView> mRecycledTabViews = new ArrayList();
+        private SlidingTabStripLayout.TabView mMeasuringTabView;
+        private final TabOffsetIndex mTabOffsets = new TabOffsetIndex();
+        // Reused for the GRAVITY_CENTER balancing of child TabViews
+        private int[] mNaturalTabWidths = new int[0];
+        private boolean mTabWidthsInvalid = true;
+        private int mFirstTabViewPosition;
+
+        // Flat rendering state, labels are ellipsized once per tab width and cached with their widths (normal, selected)
+        private TextPaint mFlatTextPaint;
+        private TextPaint mFlatSelectedTextPaint;
+        private TabTextAppearance mFlatAppearance;
+        private TabTextAppearance mFlatSelectedAppearance;
+        private ColorStateList mFlatTextColors;
+        private CharSequence[] mFlatLabels = new CharSequence[0];
+        private float[] mFlatLabelWidths = new float[0];
+        private int mFlatFirstDrawn = -1;
+        private int mFlatLastDrawn = -1;
+        private SlidingTabStripLayout.SlidingTabStrip.FlatTabAccessibilityHelper mFlatAccessibilityHelper;
+        private final int mTouchSlop;
+        private float mFlatDownX;
+        private boolean mFlatTapCandidate;
+
+        SlidingTabStrip(Context context) {
+            super(context);
+            this.setWillNotDraw(false);
+            this.mSelectedIndicatorPaint = new Paint();
+            this.mUnderlinePaint = new Paint();
+            this.mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+
+            //Bottom padding for the tabs container parent view to show indicator and underline
+            setTabsContainerParentViewPaddings();
+        }
+
+        void setTabsContainerParentViewPaddings() {
+            int bottomMargin = mSelectedIndicatorHeight >= mUnderlineHeight ? mSelectedIndicatorHeight : mUnderlineHeight;
+            setPadding(getPaddingLeft(), getPaddingTop(), getPaddingRight(), bottomMargin);
+        }
+
+        void setSelectedIndicatorColor(int color) {
+            this.mSelectedIndicatorPaint.setColor(color);
+            this.mSelectedIndicatorPaint.setAntiAlias(true);
+            this.invalidateIndicatorSpan(this.mIndicatorLeft, this.mIndicatorRight, -1.0F, -1.0F);
+        }
+
+        void setSelectedIndicatorHeight(int height) {
+            this.mSelectedIndicatorHeight = height;
+            ViewCompat.postInvalidateOnAnimation(this);
+            if (SlidingTabStripLayout.this.mIndicatorLayerEnabled) {
+                ViewCompat.postInvalidateOnAnimation(SlidingTabStripLayout.this);
+            }
+        }
+
+        void setIndicatorPositionFromTabPosition(int position, float positionOffset) {
+            if (!this.isIndicatorAnimationRunning()) {
+                this.mSelectedPosition = position;
+                this.mSelectionOffset = positionOffset;
+                this.updateIndicatorPosition();
+            }
+        }
+
+        void setUnderlineColor(int color) {
+            this.mUnderlinePaint.setColor(color);
+            this.mUnderlinePaint.setAntiAlias(true);
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+
+        void setUnderlineHeight(int height) {
+            this.mUnderlineHeight = height;
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+
+        boolean isFlat() {
+            return SlidingTabStripLayout.this.mFlatRenderingEnabled;
+        }
+
+        // True when mTabOffsets is measured from the tabs themselves rather than read back from one child view per tab
+        boolean usesTabGeometry() {
+            return this.isFlat() || this.isVirtualizing();
+        }
+
+        boolean isVirtualizing() {
+            return SlidingTabStripLayout.this.mTabViewVirtualizationEnabled && SlidingTabStripLayout.this.mMode == 0 && !this.isFlat();
+        }
+
+        SlidingTabStripLayout.TabView getTabViewAt(int position) {
+            if (this.usesTabGeometry()) {
+                int index = position - this.mFirstTabViewPosition;
+                return index >= 0 && index < this.getChildCount() ? (SlidingTabStripLayout.TabView) this.getChildAt(index) : null;
+            } else {
+                return (SlidingTabStripLayout.TabView) this.getChildAt(position);
+            }
+        }
+
+        TabOffsetIndex getTabOffsets() {
+            return this.mTabOffsets;
+        }
+
+        int getTabLeft(int position) {
+            return this.mTabOffsets.getLeft(position);
+        }
+
+        int getTabWidth(int position) {
+            return this.mTabOffsets.getWidth(position);
+        }
+
+        int getTabRight(int position) {
+            return this.mTabOffsets.getRight(position);
+        }
+
+        // Reads the child TabViews back into mTabOffsets after a regular layout pass, only the tabs whose width changed dirty the prefix sums
+        private void syncTabOffsetsFromChildren() {
+            int count = this.getChildCount();
+            if (this.mTabOffsets.size() != count) {
+                this.mTabOffsets.reset(count);
+            }
+
+            if (count > 0) {
+                this.mTabOffsets.setStart(this.getChildAt(0).getLeft());
+            }
+
+            for (int i = 0; i < count; ++i) {
+                this.mTabOffsets.setWidth(i, this.getChildAt(i).getWidth());
+            }
+
+        }
+
+        // Drops every materialized TabView, the widths are measured again on the next layout pass
+        void notifyTabsChanged() {
+            this.recycleAllTabViews();
+            this.mTabWidthsInvalid = true;
+            this.requestLayout();
+        }
+
+        // Drops every cached tab width without recycling the TabViews, used when the width bounds changed
+        void invalidateTabWidths() {
+            this.mTabWidthsInvalid = true;
+        }
+
+        void invalidateTabWidth(int position) {
+            if (position >= 0 && position < this.mTabOffsets.size()) {
+                this.mTabOffsets.invalidateWidth(position);
+                if (position < this.mFlatLabels.length) {
+                    this.mFlatLabels[position] = null;
+                }
+
+                this.requestLayout();
+            }
+        }
+
+        void resetTabViewPool() {
+            this.mRecycledTabViews.clear();
+            this.mMeasuringTabView = null;
+            this.mFirstTabViewPosition = 0;
+            this.mTabOffsets.reset(0);
+            this.mTabWidthsInvalid = true;
+        }
+
+        private void recycleAllTabViews() {
+            for (int i = this.getChildCount() - 1; i >= 0; --i) {
+                this.recycleTabViewAt(i);
+            }
+
+            this.mFirstTabViewPosition = 0;
+        }
+
+        private void recycleTabViewAt(int index) {
+            SlidingTabStripLayout.TabView tabView = (SlidingTabStripLayout.TabView) this.getChildAt(index);
+            this.removeViewInLayout(tabView);
+            tabView.releaseCustomView();
+            this.mRecycledTabViews.add(tabView);
+        }
+
+        private SlidingTabStripLayout.TabView obtainTabView(int position) {
+            SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(position);
+            SlidingTabStripLayout.TabView tabView;
+            int recycled = this.mRecycledTabViews.size();
+            if (recycled > 0) {
+                tabView = (SlidingTabStripLayout.TabView) this.mRecycledTabViews.remove(recycled - 1);
+                tabView.bindTab(tab);
+            } else {
+                tabView = SlidingTabStripLayout.this.createTabView(tab);
+            }
+
+            boolean selected = SlidingTabStripLayout.this.isTabViewSelected(position);
+            if (tabView.isSelected() != selected) {
+                tabView.setSelected(selected);
+            }
+
+            return tabView;
+        }
+
+        // Returns the measured content width of all the tabs, measuring only the ones whose width is unknown
+        private int ensureTabWidths(int childHeightMeasureSpec) {
+            int count = SlidingTabStripLayout.this.getTabCount();
+            if (this.mTabWidthsInvalid || this.mTabOffsets.size() != count) {
+                this.mTabOffsets.reset(count);
+                this.mTabWidthsInvalid = false;
+                this.mFlatLabels = this.isFlat() ? new CharSequence[count] : new CharSequence[0];
+                this.mFlatLabelWidths = this.isFlat() ? new float[count * 2] : new float[0];
+            }
+
+            this.mTabOffsets.setStart(this.getPaddingLeft());
+
+            for (int i = 0; i < count; ++i) {
+                if (!this.mTabOffsets.isWidthKnown(i)) {
+                    this.mTabOffsets.setWidth(i, this.measureTabWidth(i, childHeightMeasureSpec));
+                }
+            }
+
+            return this.mTabOffsets.getEnd() + this.getPaddingRight();
+        }
+
+        private int measureTabWidth(int position, int heightMeasureSpec) {
+            if (this.isFlat()) {
+                return this.measureFlatTabWidth(position);
+            }
+
+            SlidingTabStripLayout.TabView tabView = this.getTabViewAt(position);
+            if (tabView == null) {
+                SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(position);
+                if (this.mMeasuringTabView == null) {
+                    this.mMeasuringTabView = SlidingTabStripLayout.this.createTabView(tab);
+                } else {
+                    this.mMeasuringTabView.bindTab(tab);
+                }
+
+                tabView = this.mMeasuringTabView;
+            }
+
+            int width = tabView.getUnspecifiedWidth(heightMeasureSpec);
+            if (tabView == this.mMeasuringTabView) {
+                tabView.releaseCustomView();
+            }
+
+            return width;
+        }
+
+        // Adds and recycles TabViews so that only the visible window plus VIRTUAL_TAB_MARGIN tabs on each side are materialized
+        void populateTabViews() {
+            int count = SlidingTabStripLayout.this.getTabCount();
+            if (count == 0 || this.mTabOffsets.size() != count || this.mTabWidthsInvalid || this.isFlat()) {
+                this.recycleAllTabViews();
+                return;
+            }
+
+            int viewportLeft = SlidingTabStripLayout.this.getScrollX();
+            int viewportRight = viewportLeft + SlidingTabStripLayout.this.getWidth();
+            int first = Math.max(0, this.mTabOffsets.findPositionAt(viewportLeft) - VIRTUAL_TAB_MARGIN);
+            int last = Math.min(count - 1, this.mTabOffsets.findPositionAt(viewportRight) + VIRTUAL_TAB_MARGIN);
+
+            while (this.getChildCount() > 0 && this.mFirstTabViewPosition < first) {
+                this.recycleTabViewAt(0);
+                ++this.mFirstTabViewPosition;
+            }
+
+            while (this.getChildCount() > 0 && this.mFirstTabViewPosition + this.getChildCount() - 1 > last) {
+                this.recycleTabViewAt(this.getChildCount() - 1);
+            }
+
+            if (this.getChildCount() == 0) {
+                this.mFirstTabViewPosition = first;
+            }
+
+            while (this.mFirstTabViewPosition > first) {
+                --this.mFirstTabViewPosition;
+                this.addTabViewInLayout(this.mFirstTabViewPosition, 0);
+            }
+
+            while (this.mFirstTabViewPosition + this.getChildCount() - 1 < last) {
+                this.addTabViewInLayout(this.mFirstTabViewPosition + this.getChildCount(), this.getChildCount());
+            }
+
+        }
+
+        // Adds a TabView without requesting a layout, used while a batched tab update is open
+        void attachTabView(View child, int index, LayoutParams lp) {
+            this.addViewInLayout(child, index, lp, true);
+        }
+
+        private void addTabViewInLayout(int position, int index) {
+            SlidingTabStripLayout.TabView tabView = this.obtainTabView(position);
+            this.addViewInLayout(tabView, index, new LayoutParams(-2, -1), true);
+            this.measureTabView(tabView, position);
+            this.layoutTabView(tabView, position);
+            this.invalidate();
+        }
+
+        private void measureTabView(View child, int position) {
+            int height = Math.max(0, this.getMeasuredHeight() - this.getPaddingTop() - this.getPaddingBottom());
+            child.measure(MeasureSpec.makeMeasureSpec(this.getTabWidth(position), 1073741824), MeasureSpec.makeMeasureSpec(height, 1073741824));
+        }
+
+        private void layoutTabView(View child, int position) {
+            int left = this.getTabLeft(position);
+            child.layout(left, this.getPaddingTop(), left + child.getMeasuredWidth(), this.getPaddingTop() + child.getMeasuredHeight());
+        }
+
+        private void onMeasureVirtualized(int widthMeasureSpec, int heightMeasureSpec) {
+            int height = MeasureSpec.getSize(heightMeasureSpec);
+            int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(Math.max(0, height - this.getPaddingTop() - this.getPaddingBottom()), 1073741824);
+            boolean fixed = this.isFlat() && SlidingTabStripLayout.this.mMode == 1 && MeasureSpec.getMode(widthMeasureSpec) == 1073741824;
+            if (!fixed && this.mTabOffsets.restoreNaturalWidths()) {
+                Arrays.fill(this.mFlatLabels, null);
+            }
+
+            int contentWidth = this.ensureTabWidths(childHeightMeasureSpec);
+            this.setMeasuredDimension(resolveSize(contentWidth, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+            if (fixed) {
+                this.distributeFixedTabWidths(this.getMeasuredWidth());
+            }
+
+            int i = 0;
+
+            for (int count = this.getChildCount(); i < count; ++i) {
+                this.measureTabView(this.getChildAt(i), this.mFirstTabViewPosition + i);
+            }
+
+        }
+
+        private void onLayoutVirtualized() {
+            this.populateTabViews();
+            int i = 0;
+
+            for (int count = this.getChildCount(); i < count; ++i) {
+                this.layoutTabView(this.getChildAt(i), this.mFirstTabViewPosition + i);
+            }
+
+        }
+
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            long start = SlidingTabStripLayout.this.beginMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_MEASURE);
+            this.measureStrip(widthMeasureSpec, heightMeasureSpec);
+            SlidingTabStripLayout.this.endMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_MEASURE, start);
+        }
+
+        private void measureStrip(int widthMeasureSpec, int heightMeasureSpec) {
+            if (this.usesTabGeometry()) {
+                this.onMeasureVirtualized(widthMeasureSpec, heightMeasureSpec);
+                return;
+            }
+
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            if (MeasureSpec.getMode(widthMeasureSpec) == 1073741824) {
+                if (SlidingTabStripLayout.this.mMode == 1 && SlidingTabStripLayout.this.mTabGravity == 1) {
+                    int count = this.getChildCount();
+                    if (this.mNaturalTabWidths.length < count) {
+                        this.mNaturalTabWidths = new int[count];
+                    }
+
+                    int i;
+                    View child;
+                    for (i = 0; i < count; ++i) {
+                        child = this.getChildAt(i);
+                        this.mNaturalTabWidths[i] = ((SlidingTabStripLayout.TabView) child).getUnspecifiedWidth(heightMeasureSpec);
+                    }
+
+                    if (TabLayoutEngine.largestWidth(this.mNaturalTabWidths, count) <= 0) {
+                        return;
+                    }
+
+                    int tabWidth = TabLayoutEngine.centeredTabWidth(this.mNaturalTabWidths, count, this.getMeasuredWidth(), SlidingTabStripLayout.this.dpToPx(16));
+                    if (tabWidth != TabLayoutEngine.NO_WIDTH) {
+                        for (i = 0; i < count; ++i) {
+                            child = this.getChildAt(i);
+                            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                            lp.width = tabWidth;
+                            lp.weight = 0.0F;
+                        }
+                    } else {
+                        SlidingTabStripLayout.this.mTabGravity = 0;
+                        SlidingTabStripLayout.this.updateTabViewsLayoutParams();
+                    }
+
+                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                }
+
+            }
+        }
+
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            long start = SlidingTabStripLayout.this.beginMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_LAYOUT);
+            this.layoutStrip(changed, l, t, r, b);
+            SlidingTabStripLayout.this.endMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_LAYOUT, start);
+        }
+
+        private void layoutStrip(boolean changed, int l, int t, int r, int b) {
+            if (this.usesTabGeometry()) {
+                this.onLayoutVirtualized();
+            } else {
+                super.onLayout(changed, l, t, r, b);
+                this.syncTabOffsetsFromChildren();
+            }
+
+            if (this.isIndicatorSpringRunning()) {
+                // The spring only needs the new target, it keeps its state
+                this.retargetIndicatorSpring(this.mIndicatorSpringDriver.getPosition(), this.mIndicatorSpringDriver.getPositionOffset());
+            } else if (this.isIndicatorAnimationRunning()) {
+                // The tab geometry may have changed under the running animation, it keeps its progress and easing
+                this.retargetIndicatorAnimator();
+            } else {
+                this.updateIndicatorPosition();
+            }
+
+            SlidingTabStripLayout.this.scheduleCustomViewInflation();
+        }
+
+        private void updateIndicatorPosition() {
+            float left;
+            float right;
+            if (this.mSelectedPosition >= 0 && this.mSelectedPosition < SlidingTabStripLayout.this.getTabCount() && this.getTabWidth(this.mSelectedPosition) > 0) {
+                left = this.getIndicatorLeft(this.mSelectedPosition, this.mSelectionOffset);
+                right = this.getIndicatorRight(this.mSelectedPosition, this.mSelectionOffset);
+            } else {
+                right = -1.0F;
+                left = -1.0F;
+            }
+
+            this.setIndicatorPosition(left, right);
+        }
+
+        // The indicator edges for a ViewPager at position scrolled by positionOffset towards the next page
+        private float getIndicatorLeft(int position, float positionOffset) {
+            return positionOffset > 0.0F && position < SlidingTabStripLayout.this.getTabCount() - 1 ? TabLayoutEngine.indicatorEdge(this.getTabLeft(position), this.getTabLeft(position + 1), positionOffset) : (float) this.getTabLeft(position);
+        }
+
+        private float getIndicatorRight(int position, float positionOffset) {
+            return positionOffset > 0.0F && position < SlidingTabStripLayout.this.getTabCount() - 1 ? TabLayoutEngine.indicatorEdge(this.getTabRight(position), this.getTabRight(position + 1), positionOffset) : (float) this.getTabRight(position);
+        }
+
+        void setIndicatorRedrawThreshold(float threshold) {
+            this.mIndicatorRedrawThreshold = Math.max(0.0F, threshold);
+        }
+
+        float getIndicatorRedrawThreshold() {
+            return this.mIndicatorRedrawThreshold;
+        }
+
+        // While moving, steps below mIndicatorRedrawThreshold are dropped and accumulate against the last drawn position, a settled indicator is always exact
+        private void setIndicatorPosition(float left, float right) {
+            float threshold = this.mSelectionOffset > 0.0F || this.isIndicatorAnimationRunning() ? this.mIndicatorRedrawThreshold : 0.0F;
+            boolean wasVisible = this.mIndicatorLeft >= 0.0F && this.mIndicatorRight > this.mIndicatorLeft;
+            boolean visible = left >= 0.0F && right > left;
+            if (wasVisible != visible || Math.abs(left - this.mIndicatorLeft) > threshold || Math.abs(right - this.mIndicatorRight) > threshold) {
+                float oldLeft = this.mIndicatorLeft;
+                float oldRight = this.mIndicatorRight;
+                this.mIndicatorLeft = left;
+                this.mIndicatorRight = right;
+                this.invalidateIndicatorSpan(oldLeft, oldRight, left, right);
+            }
+
+        }
+
+        // Invalidates the union of two indicator spans, widened to whole pixels, a span whose left is negative is hidden and skipped
+        private void invalidateIndicatorSpan(float left, float right, float otherLeft, float otherRight) {
+            if (left < 0.0F || right <= left) {
+                left = otherLeft;
+                right = otherRight;
+            } else if (otherLeft >= 0.0F && otherRight > otherLeft) {
+                left = Math.min(left, otherLeft);
+                right = Math.max(right, otherRight);
+            }
+
+            if (left >= 0.0F && right > left) {
+                int dirtyLeft = (int) Math.floor((double) left);
+                int dirtyRight = (int) Math.ceil((double) right);
+                int bottom = this.getHeight();
+                int top = bottom - this.mSelectedIndicatorHeight;
+                if (SlidingTabStripLayout.this.mIndicatorLayerEnabled) {
+                    ViewCompat.postInvalidateOnAnimation(SlidingTabStripLayout.this, this.getLeft() + dirtyLeft, this.getTop() + top, this.getLeft() + dirtyRight, this.getTop() + bottom);
+                } else {
+                    ViewCompat.postInvalidateOnAnimation(this, dirtyLeft, top, dirtyRight, bottom);
+                }
+            }
+        }
+
+        void drawIndicator(Canvas canvas) {
+            if (this.mIndicatorLeft >= 0.0F && this.mIndicatorRight > this.mIndicatorLeft) {
+                this.mIndicatorRect.set(this.mIndicatorLeft, (float) (this.getHeight() - this.mSelectedIndicatorHeight), this.mIndicatorRight, (float) this.getHeight());
+                canvas.drawRect(this.mIndicatorRect, this.mSelectedIndicatorPaint);
+            }
+
+        }
+
+        boolean isIndicatorAnimationRunning() {
+            return this.mIndicatorAnimator != null && this.mIndicatorAnimator.isRunning() || this.isIndicatorSpringRunning();
+        }
+
+        private boolean isIndicatorSpringRunning() {
+            return this.mIndicatorSpringDriver != null && this.mIndicatorSpringDriver.isRunning();
+        }
+
+        private boolean canUseIndicatorSpring() {
+            return SlidingTabStripLayout.this.mIndicatorSpringEnabled && Build.VERSION.SDK_INT >= 16 && ViewCompat.isAttachedToWindow(this) && this.isShown();
+        }
+
+        void settleIndicatorSpring() {
+            if (this.isIndicatorSpringRunning()) {
+                this.mIndicatorSpringDriver.settle();
+            }
+
+        }
+
+        // Moves the target of a running spring, returns false when there is none
+        boolean retargetIndicatorSpring(int position, float positionOffset) {
+            if (!this.isIndicatorSpringRunning()) {
+                return false;
+            } else {
+                this.mIndicatorSpringDriver.animateTo(position, positionOffset, this.getIndicatorLeft(position, positionOffset), this.getIndicatorRight(position, positionOffset));
+                return true;
+            }
+        }
+
+        // A spring keeps its state while the strip is off screen and carries on from it once the strip is shown again
+        private void updateIndicatorSpringPaused() {
+            if (this.isIndicatorSpringRunning()) {
+                if (ViewCompat.isAttachedToWindow(this) && this.getWindowVisibility() == VISIBLE && this.isShown()) {
+                    this.mIndicatorSpringDriver.resume();
+                } else {
+                    this.mIndicatorSpringDriver.pause();
+                }
+            }
+
+        }
+
+        void animateIndicatorToPosition(int position, int duration) {
+            boolean isRtl = ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
+            float targetLeft = (float) this.getTabLeft(position);
+            float targetRight = (float) this.getTabRight(position);
+            float startLeft;
+            float startRight;
+            boolean interrupted = this.isIndicatorAnimationRunning();
+            if (this.mIndicatorAnimator != null && this.mIndicatorAnimator.isRunning()) {
+                // Continue from wherever the interrupted transition got to
+                this.mIndicatorAnimatorPosition = -1;
+                this.mIndicatorAnimator.cancel();
+                SlidingTabStripLayout.this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_CANCEL);
+            }
+
+            if (this.canUseIndicatorSpring()) {
+                if (this.mIndicatorSpringDriver == null) {
+                    this.mIndicatorSpringDriver = new SlidingTabStripLayout.SlidingTabStrip.IndicatorSpringDriver();
+                }
+
+                this.mIndicatorSpringDriver.animateTo(position, 0.0F, targetLeft, targetRight);
+                this.mIndicatorSpringDriver.resume();
+                return;
+            }
+
+            if (this.isIndicatorSpringRunning()) {
+                this.mIndicatorSpringDriver.stop();
+                SlidingTabStripLayout.this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_CANCEL);
+            }
+
+            if (interrupted || Math.abs(position - this.mSelectedPosition) <= 1) {
+                startLeft = this.mIndicatorLeft;
+                startRight = this.mIndicatorRight;
+            } else {
+                float animator = (float) SlidingTabStripLayout.this.dpToPx(MOTION_NON_ADJACENT_OFFSET);
+                if (position < this.mSelectedPosition) {
+                    if (isRtl) {
+                        startLeft = startRight = targetLeft - animator;
+                    } else {
+                        startLeft = startRight = targetRight + animator;
+                    }
+                } else if (isRtl) {
+                    startLeft = startRight = targetRight + animator;
+                } else {
+                    startLeft = startRight = targetLeft - animator;
+                }
+            }
+
+            if (startLeft != targetLeft || startRight != targetRight) {
+                this.ensureIndicatorAnimator();
+                this.mIndicatorAnimatorPosition = position;
+                this.mIndicatorStartLeft = startLeft;
+                this.mIndicatorStartRight = startRight;
+                this.mIndicatorTargetLeft = targetLeft;
+                this.mIndicatorTargetRight = targetRight;
+                this.mIndicatorAnimator.setDuration(duration);
+                this.mIndicatorAnimator.start();
+                SlidingTabStripLayout.this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_START);
+            } else {
+                this.mSelectedPosition = position;
+                this.mSelectionOffset = 0.0F;
+            }
+
+        }
+
+        // Moves the end of the running transition to where its tab is now, the start is rebased so that the indicator does not jump
+        private void retargetIndicatorAnimator() {
+            if (this.mIndicatorAnimatorPosition >= 0 && this.mIndicatorAnimatorPosition < SlidingTabStripLayout.this.getTabCount()) {
+                float targetLeft = (float) this.getTabLeft(this.mIndicatorAnimatorPosition);
+                float targetRight = (float) this.getTabRight(this.mIndicatorAnimatorPosition);
+                float fraction = this.mIndicatorAnimator.getAnimatedFraction();
+                if (fraction < 1.0F) {
+                    float left = AnimationUtils.lerp(this.mIndicatorStartLeft, this.mIndicatorTargetLeft, fraction);
+                    float right = AnimationUtils.lerp(this.mIndicatorStartRight, this.mIndicatorTargetRight, fraction);
+                    this.mIndicatorStartLeft = (left - fraction * targetLeft) / (1.0F - fraction);
+                    this.mIndicatorStartRight = (right - fraction * targetRight) / (1.0F - fraction);
+                }
+
+                this.mIndicatorTargetLeft = targetLeft;
+                this.mIndicatorTargetRight = targetRight;
+            }
+
+        }
+
+        private void ensureIndicatorAnimator() {
+            if (this.mIndicatorAnimator == null) {
+                this.mIndicatorAnimator = ViewUtils.createAnimator();
+                this.mIndicatorAnimator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
+                this.mIndicatorAnimator.setFloatValues(0.0F, 1.0F);
+                this.mIndicatorAnimator.addUpdateListener(new AnimatorUpdateListener() {
+                    public void onAnimationUpdate(ValueAnimatorCompat animator) {
+                        float fraction = animator.getAnimatedFraction();
+                        SlidingTabStrip strip = SlidingTabStrip.this;
+                        strip.setIndicatorPosition(AnimationUtils.lerp(strip.mIndicatorStartLeft, strip.mIndicatorTargetLeft, fraction), AnimationUtils.lerp(strip.mIndicatorStartRight, strip.mIndicatorTargetRight, fraction));
+                    }
+                });
+                this.mIndicatorAnimator.addListener(new AnimatorListenerAdapter() {
+                    public void onAnimationEnd(ValueAnimatorCompat animator) {
+                        this.onFinished();
+                    }
+
+                    public void onAnimationCancel(ValueAnimatorCompat animator) {
+                        this.onFinished();
+                    }
+
+                    // A retargeting cancel clears the position first, the new transition settles the selection instead
+                    private void onFinished() {
+                        SlidingTabStrip strip = SlidingTabStrip.this;
+                        if (strip.mIndicatorAnimatorPosition >= 0) {
+                            strip.mSelectedPosition = strip.mIndicatorAnimatorPosition;
+                            strip.mSelectionOffset = 0.0F;
+                            strip.mIndicatorAnimatorPosition = -1;
+                            strip.updateIndicatorPosition();
+                        }
+                    }
+                });
+            }
+
+        }
+
+        protected void onAttachedToWindow() {
+            super.onAttachedToWindow();
+            this.updateIndicatorSpringPaused();
+        }
+
+        protected void onDetachedFromWindow() {
+            super.onDetachedFromWindow();
+            if (this.isIndicatorSpringRunning()) {
+                this.mIndicatorSpringDriver.pause();
+            }
+
+        }
+
+        protected void onWindowVisibilityChanged(int visibility) {
+            super.onWindowVisibilityChanged(visibility);
+            this.updateIndicatorSpringPaused();
+        }
+
+        protected void onVisibilityChanged(View changedView, int visibility) {
+            super.onVisibilityChanged(changedView, visibility);
+            this.updateIndicatorSpringPaused();
+        }
+
+        /*
+         * Runs one IndicatorSpring per indicator edge from Choreographer frame callbacks. Callbacks are only
+         * posted while a spring is moving and the strip is shown, a strip that is detached or hidden pauses the
+         * springs where they are and they resume from the same state, without counting the time in between.
+         */
+        @TargetApi(16)
+        private class IndicatorSpringDriver implements Choreographer.FrameCallback {
+            // Close enough to rest, in pixels and pixels per second
+            private static final float REST_DISTANCE = 0.5F;
+            private static final float REST_VELOCITY = 8.0F;
+            private final IndicatorSpring mLeftSpring = new IndicatorSpring();
+            private final IndicatorSpring mRightSpring = new IndicatorSpring();
+            private int mPosition = -1;
+            private float mPositionOffset;
+            private long mLastFrameTimeNanos;
+            private boolean mRunning;
+            private boolean mPaused;
+
+            boolean isRunning() {
+                return this.mRunning;
+            }
+
+            int getPosition() {
+                return this.mPosition;
+            }
+
+            float getPositionOffset() {
+                return this.mPositionOffset;
+            }
+
+            // positionOffset is non zero while following a ViewPager between two pages
+            void animateTo(int position, float positionOffset, float left, float right) {
+                SlidingTabStrip strip = SlidingTabStrip.this;
+                this.mPosition = position;
+                this.mPositionOffset = positionOffset;
+                if (!this.mRunning) {
+                    if (strip.mIndicatorLeft < 0.0F || strip.mIndicatorRight <= strip.mIndicatorLeft) {
+                        // Nothing to move from
+                        this.settle();
+                        return;
                     }
 
-                    if (largestTabWidth <= 0) {
+                    this.mLeftSpring.snapTo(strip.mIndicatorLeft);
+                    this.mRightSpring.snapTo(strip.mIndicatorRight);
+                    this.mLastFrameTimeNanos = 0L;
+                    this.mRunning = true;
+                    Choreographer.getInstance().postFrameCallback(this);
+                    SlidingTabStripLayout.this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_ANIMATOR_START);
+                }
+
+                this.mLeftSpring.setTarget(left);
+                this.mRightSpring.setTarget(right);
+            }
+
+            public void doFrame(long frameTimeNanos) {
+                if (this.mRunning) {
+                    SlidingTabStrip strip = SlidingTabStrip.this;
+                    if (!ViewCompat.isAttachedToWindow(strip) || !strip.isShown()) {
+                        this.pause();
                         return;
                     }
 
-                    gutter = SlidingTabStripLayout.this.dpToPx(16);
-                    if (largestTabWidth * count <= this.getMeasuredWidth() - gutter * 2) {
-                        for (i = 0; i < count; ++i) {
-                            child = this.getChildAt(i);
-                            LayoutParams lp = (LayoutParams) child.getLayoutParams();
-                            lp.width = largestTabWidth;
-                            lp.weight = 0.0F;
-                        }
+                    if (this.mLastFrameTimeNanos != 0L) {
+                        float seconds = (float) (frameTimeNanos - this.mLastFrameTimeNanos) / 1.0E9F;
+                        this.mLeftSpring.step(seconds);
+                        this.mRightSpring.step(seconds);
+                    }
+
+                    this.mLastFrameTimeNanos = frameTimeNanos;
+                    if (this.mLeftSpring.isAtRest(REST_DISTANCE, REST_VELOCITY) && this.mRightSpring.isAtRest(REST_DISTANCE, REST_VELOCITY)) {
+                        this.settle();
                     } else {
-                        SlidingTabStripLayout.this.mTabGravity = 0;
-                        SlidingTabStripLayout.this.updateTabViewsLayoutParams();
+                        strip.setIndicatorPosition(this.mLeftSpring.getValue(), this.mRightSpring.getValue());
+                        Choreographer.getInstance().postFrameCallback(this);
                     }
+                }
+            }
 
-                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            // Stops at the target and settles the selection there
+            void settle() {
+                SlidingTabStrip strip = SlidingTabStrip.this;
+                this.stop();
+                if (this.mPosition >= 0) {
+                    strip.mSelectedPosition = this.mPosition;
+                    strip.mSelectionOffset = this.mPositionOffset;
+                    this.mPosition = -1;
+                    this.mPositionOffset = 0.0F;
+                    strip.updateIndicatorPosition();
                 }
 
             }
-        }
 
-        protected void onLayout(boolean changed, int l, int t, int r, int b) {
-            super.onLayout(changed, l, t, r, b);
-            if (!SlidingTabStripLayout.isAnimationRunning(this.getAnimation())) {
-                this.updateIndicatorPosition();
+            // Stops where it is, for handing the indicator over to the interpolated animation
+            void stop() {
+                if (this.mRunning) {
+                    this.mRunning = false;
+                    this.mPaused = false;
+                    Choreographer.getInstance().removeFrameCallback(this);
+                }
+
+            }
+
+            // Keeps the springs' state but no frames are taken until resume()
+            void pause() {
+                if (this.mRunning && !this.mPaused) {
+                    this.mPaused = true;
+                    Choreographer.getInstance().removeFrameCallback(this);
+                }
+
             }
 
+            void resume() {
+                if (this.mRunning && this.mPaused) {
+                    this.mPaused = false;
+                    // The time spent paused is not stepped through
+                    this.mLastFrameTimeNanos = 0L;
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+
+            }
         }
 
-        private void updateIndicatorPosition() {
-            View selectedTitle = this.getChildAt(this.mSelectedPosition);
-            int left;
-            int right;
-            if (selectedTitle != null && selectedTitle.getWidth() > 0) {
-                left = selectedTitle.getLeft();
-                right = selectedTitle.getRight();
-                if (this.mSelectionOffset > 0.0F && this.mSelectedPosition < this.getChildCount() - 1) {
-                    View nextTitle = this.getChildAt(this.mSelectedPosition + 1);
-                    left = (int) (this.mSelectionOffset * (float) nextTitle.getLeft() + (1.0F - this.mSelectionOffset) * (float) left);
-                    right = (int) (this.mSelectionOffset * (float) nextTitle.getRight() + (1.0F - this.mSelectionOffset) * (float) right);
+        void onFlatRenderingChanged() {
+            if (this.isFlat()) {
+                if (this.mFlatAccessibilityHelper == null) {
+                    this.mFlatAccessibilityHelper = new SlidingTabStripLayout.SlidingTabStrip.FlatTabAccessibilityHelper(this);
                 }
+
+                ViewCompat.setAccessibilityDelegate(this, this.mFlatAccessibilityHelper);
             } else {
-                right = -1;
-                left = -1;
+                ViewCompat.setAccessibilityDelegate(this, null);
             }
 
-            this.setIndicatorPosition(left, right);
+            this.invalidate();
         }
 
-        private void setIndicatorPosition(int left, int right) {
-            if (left != this.mIndicatorLeft || right != this.mIndicatorRight) {
-                this.mIndicatorLeft = left;
-                this.mIndicatorRight = right;
-                ViewCompat.postInvalidateOnAnimation(this);
+        // MODE_FIXED in flat mode, the same fill and center balancing SlidingTabStrip.onMeasure applies to TabViews
+        private void distributeFixedTabWidths(int width) {
+            int count = this.mTabOffsets.size();
+            if (count != 0) {
+                int available = width - this.getPaddingLeft() - this.getPaddingRight();
+                int tabWidth = SlidingTabStripLayout.this.mTabGravity == 1 ? this.mTabOffsets.getCenteredTabWidth(available, SlidingTabStripLayout.this.dpToPx(16)) : TabLayoutEngine.NO_WIDTH;
+                // The labels are ellipsized to the distributed widths, they only go when those changed
+                if (this.mTabOffsets.distributeFixedWidths(this.getPaddingLeft(), available, tabWidth)) {
+                    Arrays.fill(this.mFlatLabels, null);
+                }
+            }
+        }
+
+        // Keeps the flat paints in line with the resolved text appearances and tab text colors
+        private void ensureFlatPaints() {
+            TabTextAppearance appearance = SlidingTabStripLayout.this.getResolvedTabTextAppearance();
+            TabTextAppearance selectedAppearance = SlidingTabStripLayout.this.getResolvedTabSelectedTextAppearance();
+            ColorStateList colors = SlidingTabStripLayout.this.mTabTextColors != null ? SlidingTabStripLayout.this.mTabTextColors : appearance.textColor;
+            if (this.mFlatTextPaint == null) {
+                this.mFlatTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+                this.mFlatSelectedTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            }
+
+            if (appearance != this.mFlatAppearance || selectedAppearance != this.mFlatSelectedAppearance) {
+                this.configureFlatPaint(this.mFlatTextPaint, appearance);
+                this.configureFlatPaint(this.mFlatSelectedTextPaint, selectedAppearance != null ? selectedAppearance : appearance);
+                this.mFlatAppearance = appearance;
+                this.mFlatSelectedAppearance = selectedAppearance;
+                Arrays.fill(this.mFlatLabels, null);
             }
 
+            if (colors != this.mFlatTextColors) {
+                int defaultColor = colors != null ? colors.getDefaultColor() : -16777216;
+                this.mFlatTextPaint.setColor(defaultColor);
+                this.mFlatSelectedTextPaint.setColor(colors != null ? colors.getColorForState(SELECTED_STATE_SET, defaultColor) : defaultColor);
+                this.mFlatTextColors = colors;
+            }
         }
 
-        void animateIndicatorToPosition(final int position, int duration) {
-            boolean isRtl = ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
-            View targetView = this.getChildAt(position);
-            final int targetLeft = targetView.getLeft();
-            final int targetRight = targetView.getRight();
-            final int startLeft;
-            final int startRight;
-            if (Math.abs(position - this.mSelectedPosition) <= 1) {
-                startLeft = this.mIndicatorLeft;
-                startRight = this.mIndicatorRight;
+        private void configureFlatPaint(TextPaint paint, TabTextAppearance appearance) {
+            TabTextPrecomputer.configurePaint(paint, appearance);
+            if (appearance.textSize <= 0.0F) {
+                paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14.0F, this.getResources().getDisplayMetrics()));
+            }
+
+            if (appearance.shadowRadius > 0.0F) {
+                paint.setShadowLayer(appearance.shadowRadius, appearance.shadowDx, appearance.shadowDy, appearance.shadowColor);
             } else {
-                int animator = SlidingTabStripLayout.this.dpToPx(24);
-                if (position < this.mSelectedPosition) {
-                    if (isRtl) {
-                        startLeft = startRight = targetLeft - animator;
-                    } else {
-                        startLeft = startRight = targetRight + animator;
-                    }
-                } else if (isRtl) {
-                    startLeft = startRight = targetRight + animator;
+                paint.clearShadowLayer();
+            }
+        }
+
+        private int measureFlatTabWidth(int position) {
+            this.ensureFlatPaints();
+            SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(position);
+            Drawable icon = tab.getIcon();
+            CharSequence text = tab.getText();
+            int width = SlidingTabStripLayout.this.mTabPaddingStart + SlidingTabStripLayout.this.mTabPaddingEnd;
+            if (icon != null) {
+                width += icon.getIntrinsicWidth();
+            }
+
+            if (!TextUtils.isEmpty(text)) {
+                TabTextPrecomputer.Metrics metrics = tab.mTextMetrics;
+                if (metrics != null && metrics.appearance == this.mFlatAppearance && metrics.selectedAppearance == this.mFlatSelectedAppearance) {
+                    width += metrics.width;
                 } else {
-                    startLeft = startRight = targetLeft - animator;
+                    CharSequence label = SlidingTabStripLayout.this.getTransformedTabText(text);
+                    width += (int) Math.ceil((double) Math.max(this.mFlatTextPaint.measureText(label, 0, label.length()), this.mFlatSelectedTextPaint.measureText(label, 0, label.length())));
                 }
             }
 
-            if (startLeft != targetLeft || startRight != targetRight) {
-                ValueAnimatorCompat animator1 = ViewUtils.createAnimator();
-                animator1.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
-                animator1.setDuration(duration);
-                animator1.setFloatValues(0.0F, 1.0F);
-                animator1.addUpdateListener(new AnimatorUpdateListener() {
-                    public void onAnimationUpdate(ValueAnimatorCompat animator) {
-                        float fraction = animator.getAnimatedFraction();
-                        SlidingTabStrip.this.setIndicatorPosition(AnimationUtils.lerp(startLeft, targetLeft, fraction), AnimationUtils.lerp(startRight, targetRight, fraction));
+            return TabLayoutEngine.boundedTabWidth(width, SlidingTabStripLayout.this.mTabMinWidth, SlidingTabStripLayout.this.mTabMaxWidth);
+        }
+
+        private CharSequence getFlatLabel(int position) {
+            CharSequence label = this.mFlatLabels[position];
+            if (label == null) {
+                SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(position);
+                CharSequence text = tab.getText();
+                if (TextUtils.isEmpty(text)) {
+                    label = "";
+                } else {
+                    label = SlidingTabStripLayout.this.getTransformedTabText(text);
+                    Drawable icon = tab.getIcon();
+                    int available = this.mTabOffsets.getWidth(position) - SlidingTabStripLayout.this.mTabPaddingStart - SlidingTabStripLayout.this.mTabPaddingEnd - (icon != null ? icon.getIntrinsicWidth() : 0);
+                    if (this.mFlatSelectedTextPaint.measureText(label, 0, label.length()) > (float) available) {
+                        label = TextUtils.ellipsize(label, this.mFlatSelectedTextPaint, (float) Math.max(0, available), TruncateAt.END);
                     }
-                });
-                animator1.addListener(new AnimatorListenerAdapter() {
-                    public void onAnimationEnd(ValueAnimatorCompat animator) {
-                        SlidingTabStrip.this.mSelectedPosition = position;
-                        SlidingTabStrip.this.mSelectionOffset = 0.0F;
+                }
+
+                this.mFlatLabels[position] = label;
+                this.mFlatLabelWidths[position * 2] = this.mFlatTextPaint.measureText(label, 0, label.length());
+                this.mFlatLabelWidths[position * 2 + 1] = this.mFlatSelectedTextPaint.measureText(label, 0, label.length());
+            }
+
+            return label;
+        }
+
+        private boolean hasFlatGeometry() {
+            int count = SlidingTabStripLayout.this.getTabCount();
+            return count > 0 && this.mTabOffsets.size() == count && this.mFlatLabels.length == count && !this.mTabWidthsInvalid;
+        }
+
+        int getFlatTabAt(float x) {
+            if (!this.hasFlatGeometry()) {
+                return -1;
+            } else {
+                return this.mTabOffsets.findPositionContaining((int) x);
+            }
+        }
+
+        void onFlatScrollChanged() {
+            if (this.hasFlatGeometry()) {
+                int viewportLeft = SlidingTabStripLayout.this.getScrollX();
+                int first = this.mTabOffsets.findPositionAt(viewportLeft);
+                int last = this.mTabOffsets.findPositionAt(viewportLeft + SlidingTabStripLayout.this.getWidth());
+                if (first < this.mFlatFirstDrawn || last > this.mFlatLastDrawn) {
+                    this.invalidate();
+                }
+            }
+        }
+
+        // Draws the tabs of the visible window plus VIRTUAL_TAB_MARGIN tabs on each side
+        private void drawFlatTabs(Canvas canvas) {
+            if (this.hasFlatGeometry()) {
+                this.ensureFlatPaints();
+                int count = SlidingTabStripLayout.this.getTabCount();
+                int viewportLeft = SlidingTabStripLayout.this.getScrollX();
+                int first = Math.max(0, this.mTabOffsets.findPositionAt(viewportLeft) - VIRTUAL_TAB_MARGIN);
+                int last = Math.min(count - 1, this.mTabOffsets.findPositionAt(viewportLeft + SlidingTabStripLayout.this.getWidth()) + VIRTUAL_TAB_MARGIN);
+                int centerY = (this.getPaddingTop() + this.getHeight() - this.getPaddingBottom()) / 2;
+                this.mFlatFirstDrawn = first;
+                this.mFlatLastDrawn = last;
+
+                for (int i = first; i <= last; ++i) {
+                    SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(i);
+                    boolean selected = SlidingTabStripLayout.this.isTabViewSelected(i);
+                    TextPaint paint = selected ? this.mFlatSelectedTextPaint : this.mFlatTextPaint;
+                    CharSequence label = this.getFlatLabel(i);
+                    float labelWidth = this.mFlatLabelWidths[i * 2 + (selected ? 1 : 0)];
+                    Drawable icon = tab.getIcon();
+                    int iconWidth = icon != null ? icon.getIntrinsicWidth() : 0;
+                    float x = (float) this.mTabOffsets.getLeft(i) + ((float) (this.mTabOffsets.getWidth(i) - iconWidth) - labelWidth) * 0.5F;
+                    if (icon != null) {
+                        int iconLeft = (int) x;
+                        int iconTop = centerY - icon.getIntrinsicHeight() / 2;
+                        icon.setBounds(iconLeft, iconTop, iconLeft + iconWidth, iconTop + icon.getIntrinsicHeight());
+                        icon.setState(selected ? SELECTED_STATE_SET : EMPTY_STATE_SET);
+                        icon.draw(canvas);
                     }
 
-                    public void onAnimationCancel(ValueAnimatorCompat animator) {
-                        SlidingTabStrip.this.mSelectedPosition = position;
-                        SlidingTabStrip.this.mSelectionOffset = 0.0F;
+                    if (label.length() > 0) {
+                        float baseline = (float) centerY - (paint.descent() + paint.ascent()) * 0.5F;
+                        canvas.drawText(label, 0, label.length(), x + (float) iconWidth, baseline, paint);
                     }
-                });
-                animator1.start();
+                }
+
+            }
+        }
+
+        public boolean onTouchEvent(MotionEvent event) {
+            if (!this.isFlat()) {
+                return super.onTouchEvent(event);
+            } else {
+                switch (event.getActionMasked()) {
+                    case MotionEvent.ACTION_DOWN:
+                        this.mFlatDownX = event.getX();
+                        this.mFlatTapCandidate = true;
+                        SlidingTabStripLayout.this.dispatchPagePrefetch(this.getFlatTabAt(event.getX()));
+                        break;
+                    case MotionEvent.ACTION_UP:
+                        int position = this.mFlatTapCandidate ? this.getFlatTabAt(event.getX()) : -1;
+                        this.mFlatTapCandidate = false;
+                        if (position >= 0) {
+                            this.playSoundEffect(SoundEffectConstants.CLICK);
+                            SlidingTabStripLayout.this.getTabAt(position).select();
+                        }
+                        break;
+                    case MotionEvent.ACTION_MOVE:
+                        if (Math.abs(event.getX() - this.mFlatDownX) > (float) this.mTouchSlop) {
+                            this.mFlatTapCandidate = false;
+                        }
+                        break;
+                    case MotionEvent.ACTION_CANCEL:
+                        this.mFlatTapCandidate = false;
+                }
+
+                return true;
             }
+        }
 
+        protected boolean dispatchHoverEvent(MotionEvent event) {
+            return this.isFlat() && this.mFlatAccessibilityHelper != null && this.mFlatAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
         }
 
         protected void onDraw(Canvas canvas) {
+            long start = SlidingTabStripLayout.this.beginMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_DRAW);
+            this.drawStrip(canvas);
+            SlidingTabStripLayout.this.endMetricsSection(SlidingTabStripLayout.TabStripMetrics.SECTION_STRIP_DRAW, start);
+        }
+
+        private void drawStrip(Canvas canvas) {
+            if (this.isFlat()) {
+                this.drawFlatTabs(canvas);
+            }
+
             // draw underline
             if (this.mUnderlineHeight > 0) {
-                canvas.drawRect(1, (float) (this.getHeight() - mUnderlineHeight), (float) this.getWidth() + 1, (float) this.getHeight(), mUnderlinePaint);
+                this.mUnderlineRect.set(1.0F, (float) (this.getHeight() - this.mUnderlineHeight), (float) this.getWidth() + 1.0F, (float) this.getHeight());
+                canvas.drawRect(this.mUnderlineRect, this.mUnderlinePaint);
+            }
+
+            if (!SlidingTabStripLayout.this.mIndicatorLayerEnabled) {
+                this.drawIndicator(canvas);
+            }
+
+        }
+
+        // Exposes the tabs drawn by the flat strip as virtual accessibility nodes
+        private class FlatTabAccessibilityHelper extends ExploreByTouchHelper {
+            private final Rect mTempRect = new Rect();
+
+            FlatTabAccessibilityHelper(View host) {
+                super(host);
+            }
+
+            protected int getVirtualViewAt(float x, float y) {
+                int position = SlidingTabStrip.this.getFlatTabAt(x);
+                return position >= 0 ? position : INVALID_ID;
+            }
+
+            protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+                int i = 0;
+
+                for (int count = SlidingTabStripLayout.this.getTabCount(); i < count; ++i) {
+                    virtualViewIds.add(i);
+                }
+
+            }
+
+            protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+                event.setContentDescription(this.getTabDescription(virtualViewId));
+            }
+
+            protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+                node.setContentDescription(this.getTabDescription(virtualViewId));
+                node.setClassName(android.support.v7.app.ActionBar.Tab.class.getName());
+                node.setClickable(true);
+                node.setSelected(virtualViewId == SlidingTabStripLayout.this.getSelectedTabPosition());
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+                int left = SlidingTabStrip.this.getTabLeft(virtualViewId);
+                this.mTempRect.set(left, 0, left + SlidingTabStrip.this.getTabWidth(virtualViewId), SlidingTabStrip.this.getHeight());
+                if (this.mTempRect.isEmpty()) {
+                    this.mTempRect.set(0, 0, 1, 1);
+                }
+
+                node.setBoundsInParent(this.mTempRect);
             }
-            if (this.mIndicatorLeft >= 0 && this.mIndicatorRight > this.mIndicatorLeft) {
-                canvas.drawRect((float) this.mIndicatorLeft, (float) (this.getHeight() - this.mSelectedIndicatorHeight), (float) this.mIndicatorRight, (float) this.getHeight(), this.mSelectedIndicatorPaint);
+
+            protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+                if (action == AccessibilityNodeInfoCompat.ACTION_CLICK && virtualViewId >= 0 && virtualViewId < SlidingTabStripLayout.this.getTabCount()) {
+                    SlidingTabStripLayout.this.getTabAt(virtualViewId).select();
+                    this.invalidateVirtualView(virtualViewId);
+                    this.sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+                    return true;
+                } else {
+                    return false;
+                }
             }
 
+            private CharSequence getTabDescription(int position) {
+                if (position >= 0 && position < SlidingTabStripLayout.this.getTabCount()) {
+                    SlidingTabStripLayout.Tab tab = SlidingTabStripLayout.this.getTabAt(position);
+                    return !TextUtils.isEmpty(tab.getContentDescription()) ? tab.getContentDescription() : tab.getText();
+                } else {
+                    return "";
+                }
+            }
         }
     }
 
     class TabView extends LinearLayout implements OnLongClickListener {
-        private final SlidingTabStripLayout.Tab mTab;
-        private TextView mTextView;
+        private SlidingTabStripLayout.Tab mTab;
+        private SlidingTabStripLayout.TabTextView mTextView;
         private ImageView mIconView;
         private View mCustomView;
 
+        // Measured size cache, keyed by the content the tab was last updated with
+        private int mContentVersion;
+        private int mNaturalSizeVersion = -1;
+        private int mNaturalHeightMeasureSpec;
+        private int mNaturalWidth;
+        private int mNaturalHeight;
+        private String mMeasuredText;
+        private Drawable mMeasuredIcon;
+        private int mMeasuredIconWidth;
+        private int mMeasuredIconHeight;
+        private View mMeasuredCustomView;
+        private TabTextAppearance mMeasuredAppearance;
+        private TabTextAppearance mMeasuredSelectedAppearance;
+        private boolean mUpdating;
+        private boolean mLayoutRequestedWhileUpdating;
+        private int mLastWidthMeasureSpec;
+        private int mLastHeightMeasureSpec;
+
         public TabView(Context context, SlidingTabStripLayout.Tab tab) {
             super(context);
             this.mTab = tab;
@@ -839,24 +3221,32 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         }
 
         public void setSelected(boolean selected) {
-            //boolean changed = this.isSelected() != selected;
             super.setSelected(selected);
             if (selected) {
                 this.sendAccessibilityEvent(4);
                 if (this.mTextView != null) {
                     this.mTextView.setSelected(selected);
-                    if (isTabSelectedTextBold) {
-                        this.mTextView.setTextAppearance(this.getContext(), mTabSelectedTextAppearance);
-
-                    }
                 }
 
                 if (this.mIconView != null) {
                     this.mIconView.setSelected(selected);
                 }
-            } else {
-                this.mTextView.setTextAppearance(this.getContext(), mTabTextAppearance);
             }
+
+            // The text view reserves room for both appearances, switching them never needs a layout pass
+            if (this.mTextView != null) {
+                TabTextAppearance selectedAppearance = SlidingTabStripLayout.this.getResolvedTabSelectedTextAppearance();
+                this.mTextView.switchAppearance(selected && selectedAppearance != null ? selectedAppearance : SlidingTabStripLayout.this.getResolvedTabTextAppearance());
+            }
+        }
+
+        // On the down itself, the pressed state comes later as the scrolling parent delays it to tell taps from drags
+        public boolean onTouchEvent(MotionEvent event) {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                SlidingTabStripLayout.this.dispatchPagePrefetch(this.mTab.getPosition());
+            }
+
+            return super.onTouchEvent(event);
         }
 
         @TargetApi(14)
@@ -872,18 +3262,148 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         }
 
         public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-            if (SlidingTabStripLayout.this.mTabMaxWidth != 0 && this.getMeasuredWidth() > SlidingTabStripLayout.this.mTabMaxWidth) {
-                super.onMeasure(MeasureSpec.makeMeasureSpec(SlidingTabStripLayout.this.mTabMaxWidth, 1073741824), heightMeasureSpec);
-            } else if (SlidingTabStripLayout.this.mTabMinWidth > 0 && this.getMeasuredHeight() < SlidingTabStripLayout.this.mTabMinWidth) {
-                super.onMeasure(MeasureSpec.makeMeasureSpec(SlidingTabStripLayout.this.mTabMinWidth, 1073741824), heightMeasureSpec);
+            this.mLastWidthMeasureSpec = widthMeasureSpec;
+            this.mLastHeightMeasureSpec = heightMeasureSpec;
+            int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+            if (widthMode == 1073741824 || this.mCustomView != null) {
+                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                int clampedWidthMeasureSpec = this.getClampedWidthMeasureSpec(this.getMeasuredWidth());
+                if (clampedWidthMeasureSpec != 0) {
+                    super.onMeasure(clampedWidthMeasureSpec, heightMeasureSpec);
+                }
+            } else {
+                // The wrap_content size comes from the cache, so only a single measure pass with the final spec is needed
+                boolean measured = this.ensureNaturalSize(heightMeasureSpec);
+                int width = widthMode == -2147483648 ? Math.min(this.mNaturalWidth, MeasureSpec.getSize(widthMeasureSpec)) : this.mNaturalWidth;
+                int clampedWidthMeasureSpec = this.getClampedWidthMeasureSpec(width);
+                if (clampedWidthMeasureSpec != 0) {
+                    super.onMeasure(clampedWidthMeasureSpec, heightMeasureSpec);
+                } else if (!measured || widthMode != 0) {
+                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                }
+            }
+
+        }
+
+        // Returns an exact spec when the tab has to be clamped to the max or min tab width, 0 otherwise
+        private int getClampedWidthMeasureSpec(int measuredWidth) {
+            int width = TabLayoutEngine.clampedTabWidth(measuredWidth, SlidingTabStripLayout.this.mTabMinWidth, SlidingTabStripLayout.this.mTabMaxWidth);
+            return width != TabLayoutEngine.NO_WIDTH ? MeasureSpec.makeMeasureSpec(width, 1073741824) : 0;
+        }
+
+        // Measures the unconstrained size of the tab unless it is cached for this content and height, returns true if it measured
+        private boolean ensureNaturalSize(int heightMeasureSpec) {
+            if (this.mCustomView == null && this.mNaturalSizeVersion == this.mContentVersion && this.mNaturalHeightMeasureSpec == heightMeasureSpec) {
+                return false;
+            } else {
+                super.onMeasure(MeasureSpec.makeMeasureSpec(0, 0), heightMeasureSpec);
+                this.mNaturalWidth = this.getMeasuredWidth();
+                this.mNaturalHeight = this.getMeasuredHeight();
+                this.mNaturalHeightMeasureSpec = heightMeasureSpec;
+                this.mNaturalSizeVersion = this.mContentVersion;
+                return true;
+            }
+        }
+
+        // Width this tab takes when measured with an UNSPECIFIED width, without a measure pass when it is cached
+        int getUnspecifiedWidth(int heightMeasureSpec) {
+            this.ensureNaturalSize(heightMeasureSpec);
+            int clampedWidthMeasureSpec = this.getClampedWidthMeasureSpec(this.mNaturalWidth);
+            return clampedWidthMeasureSpec != 0 ? MeasureSpec.getSize(clampedWidthMeasureSpec) : this.mNaturalWidth;
+        }
+
+        // Bumps the content version, and with it drops the cached size, only when something that affects the size changed
+        private void updateMeasureKey(CharSequence text, Drawable icon, View custom) {
+            int iconWidth = icon != null ? icon.getIntrinsicWidth() : 0;
+            int iconHeight = icon != null ? icon.getIntrinsicHeight() : 0;
+            TabTextAppearance appearance = SlidingTabStripLayout.this.getResolvedTabTextAppearance();
+            TabTextAppearance selectedAppearance = SlidingTabStripLayout.this.getResolvedTabSelectedTextAppearance();
+            if (!TextUtils.equals(this.mMeasuredText, text) || this.mMeasuredIcon != icon || this.mMeasuredIconWidth != iconWidth || this.mMeasuredIconHeight != iconHeight || this.mMeasuredCustomView != custom || this.mMeasuredAppearance != appearance || this.mMeasuredSelectedAppearance != selectedAppearance) {
+                this.mMeasuredText = text != null ? text.toString() : null;
+                this.mMeasuredIcon = icon;
+                this.mMeasuredIconWidth = iconWidth;
+                this.mMeasuredIconHeight = iconHeight;
+                this.mMeasuredCustomView = custom;
+                this.mMeasuredAppearance = appearance;
+                this.mMeasuredSelectedAppearance = selectedAppearance;
+                ++this.mContentVersion;
+            }
+
+        }
+
+        // Rebinds a recycled TabView to another tab
+        final void bindTab(SlidingTabStripLayout.Tab tab) {
+            if (this.mTab != tab) {
+                if (this.mCustomView != null && this.mCustomView != tab.peekCustomView()) {
+                    this.releaseCustomView();
+                }
+
+                this.mTab = tab;
+            }
+
+            this.update();
+        }
+
+        final void releaseCustomView() {
+            if (this.mCustomView != null) {
+                this.removeView(this.mCustomView);
+                this.mCustomView = null;
+            }
+
+        }
+
+        /**
+         * Binds the views to the tab's current content. Layout requests raised meanwhile are held back, when the
+         * tab keeps its size it is re-laid out in place instead. Returns false if a layout pass was requested.
+         */
+        final boolean update() {
+            boolean canKeepSize = this.mCustomView == null && ViewCompat.isLaidOut(this) && !this.isLayoutRequested() && this.mNaturalSizeVersion == this.mContentVersion;
+            int naturalWidth = this.mNaturalWidth;
+            int naturalHeight = this.mNaturalHeight;
+            this.mLayoutRequestedWhileUpdating = false;
+            this.mUpdating = true;
+            this.updateViews();
+            this.mUpdating = false;
+            if (!this.mLayoutRequestedWhileUpdating) {
+                return true;
+            } else if (canKeepSize && this.mCustomView == null && this.relayoutInPlace(naturalWidth, naturalHeight)) {
+                return true;
+            } else {
+                SlidingTabStripLayout.this.countMetricsEvent(SlidingTabStripLayout.TabStripMetrics.COUNTER_TAB_VIEW_UPDATE_LAYOUT);
+                super.requestLayout();
+                return false;
+            }
+        }
+
+        // Measures again with the specs of the last pass and, if neither the size nor the natural size moved, lays the children out within the current bounds
+        private boolean relayoutInPlace(int naturalWidth, int naturalHeight) {
+            int width = this.getMeasuredWidth();
+            int height = this.getMeasuredHeight();
+            this.ensureNaturalSize(this.mLastHeightMeasureSpec);
+            if (this.mNaturalWidth == naturalWidth && this.mNaturalHeight == naturalHeight) {
+                this.forceLayout();
+                this.measure(this.mLastWidthMeasureSpec, this.mLastHeightMeasureSpec);
+                if (this.getMeasuredWidth() == width && this.getMeasuredHeight() == height) {
+                    this.layout(this.getLeft(), this.getTop(), this.getRight(), this.getBottom());
+                    this.invalidate();
+                    return true;
+                }
             }
 
+            return false;
+        }
+
+        public void requestLayout() {
+            if (this.mUpdating) {
+                this.mLayoutRequestedWhileUpdating = true;
+            } else {
+                super.requestLayout();
+            }
         }
 
-        final void update() {
+        private void updateViews() {
             SlidingTabStripLayout.Tab tab = this.mTab;
-            View custom = tab.getCustomView();
+            View custom = tab.peekCustomView();
             if (custom != null) {
                 ViewParent icon = custom.getParent();
                 if (icon != this) {
@@ -903,6 +3423,8 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
                     this.mIconView.setVisibility(View.GONE);
                     this.mIconView.setImageDrawable((Drawable) null);
                 }
+
+                this.updateMeasureKey((CharSequence) null, (Drawable) null, custom);
             } else {
                 if (this.mCustomView != null) {
                     this.removeView(this.mCustomView);
@@ -931,20 +3453,21 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
                 boolean hasText1 = !TextUtils.isEmpty(text);
                 if (hasText1) {
                     if (this.mTextView == null) {
-                        AppCompatTextView textView1 = new AppCompatTextView(this.getContext());
+                        SlidingTabStripLayout.TabTextView textView1 = new SlidingTabStripLayout.TabTextView(this.getContext());
                         textView1.setTextAppearance(this.getContext(), SlidingTabStripLayout.this.mTabTextAppearance);
                         textView1.setMaxLines(2);
                         textView1.setEllipsize(TruncateAt.END);
                         textView1.setGravity(17);
-                        if (SlidingTabStripLayout.this.mTabTextColors != null) {
-                            textView1.setTextColor(SlidingTabStripLayout.this.mTabTextColors);
-                        }
-
                         this.addView(textView1, -2, -2);
                         this.mTextView = textView1;
                     }
 
+                    TabTextAppearance appearance = SlidingTabStripLayout.this.getResolvedTabTextAppearance();
+                    TabTextAppearance selectedAppearance = SlidingTabStripLayout.this.getResolvedTabSelectedTextAppearance();
+                    this.mTextView.setAppearances(this.isSelected() && selectedAppearance != null ? selectedAppearance : appearance, selectedAppearance, SlidingTabStripLayout.this.mTabTextColors);
+
                     this.mTextView.setText(text);
+                    this.mTextView.setTextMetrics(tab.mTextMetrics);
                     this.mTextView.setContentDescription(tab.getContentDescription());
                     this.mTextView.setVisibility(View.VISIBLE);
                 } else if (this.mTextView != null) {
@@ -962,6 +3485,8 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
                     this.setOnLongClickListener((OnLongClickListener) null);
                     this.setLongClickable(false);
                 }
+
+                this.updateMeasureKey(text, icon1, (View) null);
             }
 
         }
@@ -984,6 +3509,104 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         }
     }
 
+    /*
+     * Title view of a TabView. When the selected tab uses tabSelectedTextAppearance it is always measured
+     * for the wider of the two appearances, so switching between them only changes the paint and the
+     * layout requests that TextView issues for it are dropped.
+     */
+    static class TabTextView extends AppCompatTextView {
+        private TabTextAppearance mAppearance;
+        private TabTextAppearance mSelectedAppearance;
+        private ColorStateList mTextColorOverride;
+        private boolean mSuppressLayout;
+        private TabTextPrecomputer.Metrics mTextMetrics;
+        // Size with the selected appearance, measured once per text or appearance change and measure specs
+        private boolean mReservedSizeValid;
+        private int mReservedWidth;
+        private int mReservedHeight;
+        private int mReservedWidthMeasureSpec;
+        private int mReservedHeightMeasureSpec;
+
+        TabTextView(Context context) {
+            super(context);
+        }
+
+        void setAppearances(TabTextAppearance appearance, TabTextAppearance selectedAppearance, ColorStateList textColorOverride) {
+            if (this.mAppearance != appearance || this.mSelectedAppearance != selectedAppearance || this.mTextColorOverride != textColorOverride) {
+                this.mAppearance = appearance;
+                this.mSelectedAppearance = selectedAppearance;
+                this.mTextColorOverride = textColorOverride;
+                this.mReservedSizeValid = false;
+                appearance.apply(this, textColorOverride);
+            }
+        }
+
+        void switchAppearance(TabTextAppearance appearance) {
+            if (this.mAppearance != null && this.mAppearance != appearance) {
+                this.mAppearance = appearance;
+                this.mSuppressLayout = this.mSelectedAppearance != null;
+                appearance.apply(this, this.mTextColorOverride);
+                this.mSuppressLayout = false;
+            }
+        }
+
+        void setTextMetrics(TabTextPrecomputer.Metrics metrics) {
+            this.mTextMetrics = metrics;
+        }
+
+        // Any change that can resize the text asks for a layout, which also drops the reserved size
+        public void requestLayout() {
+            if (!this.mSuppressLayout) {
+                this.mReservedSizeValid = false;
+                super.requestLayout();
+            }
+        }
+
+        // Single line size from the background precomputed metrics, the text layout itself is built lazily when drawn
+        private boolean measureFromTextMetrics(int widthMeasureSpec, int heightMeasureSpec) {
+            TabTextPrecomputer.Metrics metrics = this.mTextMetrics;
+            if (metrics != null && metrics.selectedAppearance == this.mSelectedAppearance && (metrics.appearance == this.mAppearance || metrics.selectedAppearance == this.mAppearance) && TextUtils.equals(metrics.text, this.getText())) {
+                int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+                int width = metrics.width + this.getCompoundPaddingLeft() + this.getCompoundPaddingRight();
+                if (widthMode == 0 || widthMode == -2147483648 && width <= MeasureSpec.getSize(widthMeasureSpec)) {
+                    int height = metrics.height + this.getCompoundPaddingTop() + this.getCompoundPaddingBottom();
+                    this.setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            if (this.measureFromTextMetrics(widthMeasureSpec, heightMeasureSpec)) {
+                return;
+            }
+
+            TabTextAppearance current = this.mAppearance;
+            TabTextAppearance widest = this.mSelectedAppearance;
+            if (current != null && widest != null && current != widest) {
+                if (!this.mReservedSizeValid || this.mReservedWidthMeasureSpec != widthMeasureSpec || this.mReservedHeightMeasureSpec != heightMeasureSpec) {
+                    this.mSuppressLayout = true;
+                    widest.apply(this, this.mTextColorOverride);
+                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                    this.mReservedWidth = this.getMeasuredWidth();
+                    this.mReservedHeight = this.getMeasuredHeight();
+                    this.mReservedWidthMeasureSpec = widthMeasureSpec;
+                    this.mReservedHeightMeasureSpec = heightMeasureSpec;
+                    current.apply(this, this.mTextColorOverride);
+                    this.mSuppressLayout = false;
+                    this.mReservedSizeValid = true;
+                }
+
+                super.onMeasure(MeasureSpec.makeMeasureSpec(this.mReservedWidth, 1073741824), heightMeasureSpec);
+                this.setMeasuredDimension(this.mReservedWidth, Math.max(this.mReservedHeight, this.getMeasuredHeight()));
+            } else {
+                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            }
+        }
+    }
+
     /*
      * <p>
      * The views used as tabs can be customized by calling {@link SlidingTabStripLayout.Tab.setCustomView(View)} Color(android.view.View)},
@@ -993,12 +3616,21 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
     public static final class Tab {
         public static final int INVALID_POSITION = -1;
         private Object mTag;
+        // Recorded from a PageObjectProvider adapter, unlike the tag it is the only object given to getItemPosition()
+        private Object mPageObject;
         private Drawable mIcon;
+        private int mIconResId;
+        // Moved on by every icon change and by the removal of the tab, see SlidingTabStripLayout#loadTabIcon
+        private int mIconGeneration;
         private CharSequence mText;
         private CharSequence mContentDesc;
         private int mPosition = -1;
         private View mCustomView;
+        private int mCustomViewLayoutResId;
+        private boolean mCustomViewInflating;
+        private boolean mUpdatePending;
         private final SlidingTabStripLayout mParent;
+        private TabTextPrecomputer.Metrics mTextMetrics;
 
         Tab(SlidingTabStripLayout parent) {
             this.mParent = parent;
@@ -1013,21 +3645,58 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
             return this;
         }
 
-        View getCustomView() {
+        /**
+         * The custom view of this tab. A layout set with {@link #setCustomView(int)} that was not inflated yet is
+         * inflated now, on the calling thread, so the returned view can be set up right away.
+         */
+        public View getCustomView() {
+            if (this.isCustomViewPending()) {
+                this.mCustomView = LayoutInflater.from(this.mParent.getContext()).inflate(this.mCustomViewLayoutResId, (ViewGroup) null);
+                if (this.mPosition >= 0) {
+                    this.mParent.requestTabUpdate(this);
+                }
+            }
+
+            return this.mCustomView;
+        }
+
+        // The custom view as it is, null while a layout set with setCustomView(int) is still pending
+        View peekCustomView() {
             return this.mCustomView;
         }
 
+        // True while the custom view is only known by its layout resource, see setCustomView(int)
+        boolean isCustomViewPending() {
+            return this.mCustomView == null && this.mCustomViewLayoutResId != 0;
+        }
+
         public SlidingTabStripLayout.Tab setCustomView(View view) {
             this.mCustomView = view;
+            this.mCustomViewLayoutResId = 0;
             if (this.mPosition >= 0) {
-                this.mParent.updateTab(this.mPosition);
+                this.mParent.requestTabUpdate(this);
             }
 
             return this;
         }
 
+        /**
+         * Uses the given layout as this tab's custom view. It is not inflated until the tab first becomes visible or
+         * {@link #getCustomView()} is called, the tab shows its text and icon until then.
+         */
         public SlidingTabStripLayout.Tab setCustomView(int layoutResId) {
-            return this.setCustomView(LayoutInflater.from(this.mParent.getContext()).inflate(layoutResId, (ViewGroup) null));
+            this.mCustomView = null;
+            this.mCustomViewLayoutResId = layoutResId;
+            if (layoutResId != 0) {
+                this.mParent.mHasPendingCustomViews = true;
+            }
+
+            if (this.mPosition >= 0) {
+                this.mParent.requestTabUpdate(this);
+                this.mParent.scheduleCustomViewInflation();
+            }
+
+            return this;
         }
 
         public Drawable getIcon() {
@@ -1039,6 +3708,10 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         }
 
         void setPosition(int position) {
+            if (position < 0 && this.mPosition >= 0) {
+                ++this.mIconGeneration;
+            }
+
             this.mPosition = position;
         }
 
@@ -1048,21 +3721,26 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
 
         public SlidingTabStripLayout.Tab setIcon(Drawable icon) {
             this.mIcon = icon;
+            this.mIconResId = 0;
+            ++this.mIconGeneration;
             if (this.mPosition >= 0) {
-                this.mParent.updateTab(this.mPosition);
+                this.mParent.requestTabUpdate(this);
             }
 
             return this;
         }
 
+        // Shares the icon through the process wide TabIconCache, see SlidingTabStripLayout#setTabIconSize(int)
         public SlidingTabStripLayout.Tab setIcon(int resId) {
-            return this.setIcon(ContextCompat.getDrawable(this.mParent.getContext(), resId));
+            this.mParent.loadTabIcon(this, resId);
+            return this;
         }
 
         public SlidingTabStripLayout.Tab setText(CharSequence text) {
             this.mText = text;
+            this.mParent.precomputeTabText(this);
             if (this.mPosition >= 0) {
-                this.mParent.updateTab(this.mPosition);
+                this.mParent.requestTabUpdate(this);
             }
 
             return this;
@@ -1083,7 +3761,7 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         public SlidingTabStripLayout.Tab setContentDescription(CharSequence contentDesc) {
             this.mContentDesc = contentDesc;
             if (this.mPosition >= 0) {
-                this.mParent.updateTab(this.mPosition);
+                this.mParent.requestTabUpdate(this);
             }
 
             return this;
@@ -1094,6 +3772,95 @@ public class SlidingTabStripLayout extends HorizontalScrollView {
         }
     }
 
+    /**
+     * Timings and counters reported by a layout to the listener set with setTabStripMetrics, always on the main
+     * thread. Timed sections carry the same names as the trace sections emitted for them.
+     */
+    public interface TabStripMetrics {
+        String SECTION_MEASURE = "SlidingTabStripLayout.onMeasure";
+        String SECTION_STRIP_MEASURE = "SlidingTabStrip.onMeasure";
+        String SECTION_STRIP_LAYOUT = "SlidingTabStrip.onLayout";
+        String SECTION_STRIP_DRAW = "SlidingTabStrip.onDraw";
+        String SECTION_SET_SCROLL_POSITION = "SlidingTabStripLayout.setScrollPosition";
+        // A layout request that reached a TabView while it was updating from its Tab
+        String COUNTER_TAB_VIEW_UPDATE_LAYOUT = "TabView.update.requestLayout";
+        String COUNTER_ANIMATOR_START = "SlidingTabStripLayout.animatorStart";
+        String COUNTER_ANIMATOR_CANCEL = "SlidingTabStripLayout.animatorCancel";
+        String COUNTER_TAB_VIEW_CREATED = "TabView.create";
+
+        void onSectionTimed(String section, long durationNanos);
+
+        void onCounter(String counter);
+    }
+
+    static class SavedState extends BaseSavedState {
+        int selectedPosition;
+        int scrollX;
+        CharSequence[] texts;
+        Object[] tags;
+
+        public static final Creator<SlidingTabStripLayout.SavedState> CREATOR = new Creator<SlidingTabStripLayout.SavedState>() {
+            public SlidingTabStripLayout.SavedState createFromParcel(Parcel source) {
+                return new SlidingTabStripLayout.SavedState(source);
+            }
+
+            public SlidingTabStripLayout.SavedState[] newArray(int size) {
+                return new SlidingTabStripLayout.SavedState[size];
+            }
+        };
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel source) {
+            super(source);
+            this.selectedPosition = source.readInt();
+            this.scrollX = source.readInt();
+            int count = source.readInt();
+            this.texts = new CharSequence[count];
+            this.tags = new Object[count];
+
+            for (int i = 0; i < count; ++i) {
+                this.texts[i] = (CharSequence) TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(source);
+                this.tags[i] = source.readValue(SlidingTabStripLayout.SavedState.class.getClassLoader());
+            }
+
+        }
+
+        public void writeToParcel(Parcel dest, int flags) {
+            super.writeToParcel(dest, flags);
+            dest.writeInt(this.selectedPosition);
+            dest.writeInt(this.scrollX);
+            dest.writeInt(this.texts.length);
+
+            for (int i = 0; i < this.texts.length; ++i) {
+                TextUtils.writeToParcel(this.texts[i], dest, flags);
+                dest.writeValue(this.tags[i]);
+            }
+
+        }
+
+        // Tags are kept when a Parcel can hold them, anything else is dropped rather than failing the save
+        static boolean canWriteTag(Object tag) {
+            return tag instanceof String || tag instanceof Integer || tag instanceof Long || tag instanceof Parcelable;
+        }
+    }
+
+    /**
+     * Implemented by a PagerAdapter that can hand out its page objects, the ones its getItemPosition() takes, without
+     * instantiating the pages. The layout then follows pages that move across notifyDataSetChanged() by identity
+     * rather than by title.
+     */
+    public interface PageObjectProvider {
+        Object getPageObject(int position);
+    }
+
+    public interface OnPagePrefetchListener {
+        // The page at position is likely to be selected next, called on the main thread
+        void onPrefetchPage(int position);
+    }
+
     public interface OnTabSelectedListener {
         void onTabSelected(SlidingTabStripLayout.Tab tab);
 
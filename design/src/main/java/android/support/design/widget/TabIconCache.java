@@ -0,0 +1,151 @@
+package android.support.design.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LruCache;
+import android.util.TypedValue;
+
+/**
+ * Process wide cache of the tab icons set by resource id, shared by every {@link SlidingTabStripLayout}.
+ * It keeps the drawables' {@link Drawable.ConstantState}s keyed by resource id, screen density and
+ * target size, so an icon is loaded once and every tab showing it shares the same bitmap. The least
+ * recently used icons are evicted once the cached bitmaps pass {@link #MAX_SIZE_BYTES}. The theme is
+ * not part of the key, so drawables that take theme attributes are loaded every time and never cached.
+ * <p>
+ * With a target size, bitmap resources larger than it are decoded with the largest power of two
+ * subsampling that keeps them at least that size and then scaled down to it, rather than decoded at
+ * full size and shrunk on every draw. Safe to use from any thread.
+ */
+final class TabIconCache {
+
+    static final int MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    private static TabIconCache sInstance;
+
+    private final LruCache<Long, TabIconCache.Entry> mEntries;
+
+    private static final class Entry {
+        final Drawable.ConstantState state;
+        final int byteCount;
+
+        Entry(Drawable.ConstantState state, int byteCount) {
+            this.state = state;
+            this.byteCount = byteCount;
+        }
+    }
+
+    static synchronized TabIconCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new TabIconCache(MAX_SIZE_BYTES);
+        }
+
+        return sInstance;
+    }
+
+    TabIconCache(int maxSizeBytes) {
+        this.mEntries = new LruCache<Long, TabIconCache.Entry>(maxSizeBytes) {
+            protected int sizeOf(Long key, TabIconCache.Entry entry) {
+                return entry.byteCount;
+            }
+        };
+    }
+
+    // A new drawable sharing the cached state of the icon, or null when it is not cached
+    Drawable get(Context context, int resId, int targetSize) {
+        Resources res = context.getResources();
+        TabIconCache.Entry entry = this.mEntries.get(key(res, resId, targetSize));
+        if (entry == null) {
+            return null;
+        } else {
+            return Build.VERSION.SDK_INT >= 21 ? entry.state.newDrawable(res, context.getTheme()) : entry.state.newDrawable(res);
+        }
+    }
+
+    // Loads the icon and caches it, targetSize is in pixels and 0 keeps bitmaps at their own size
+    Drawable load(Context context, int resId, int targetSize) {
+        Resources res = context.getResources();
+        Drawable drawable = targetSize > 0 && isBitmap(res, resId) ? decodeBitmap(res, resId, targetSize) : null;
+        if (drawable == null) {
+            drawable = ContextCompat.getDrawable(context, resId);
+        }
+
+        Drawable.ConstantState state = drawable != null ? drawable.getConstantState() : null;
+        // A themed drawable depends on the context's theme, which another layout may not share
+        if (state != null && (Build.VERSION.SDK_INT < 21 || !state.canApplyTheme())) {
+            this.mEntries.put(key(res, resId, targetSize), new TabIconCache.Entry(state, byteCount(drawable)));
+        }
+
+        return drawable;
+    }
+
+    private static Long key(Resources res, int resId, int targetSize) {
+        return Long.valueOf((long) resId << 32 | (long) (res.getDisplayMetrics().densityDpi & 0xFFFF) << 16 | (long) (targetSize & 0xFFFF));
+    }
+
+    // Plain bitmap files only, nine-patches and xml drawables go through the regular drawable path
+    private static boolean isBitmap(Resources res, int resId) {
+        TypedValue value = new TypedValue();
+        res.getValue(resId, value, true);
+        if (value.string == null) {
+            return false;
+        } else {
+            String file = value.string.toString();
+            return !file.endsWith(".xml") && !file.endsWith(".9.png");
+        }
+    }
+
+    // Returns null when the bitmap is not larger than targetSize, it is then loaded as it would be without the cache
+    private static Drawable decodeBitmap(Resources res, int resId, int targetSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(res, resId, options);
+        int size = Math.max(options.outWidth, options.outHeight);
+        if (size <= targetSize) {
+            return null;
+        } else {
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = 1;
+
+            while (size / (options.inSampleSize * 2) >= targetSize) {
+                options.inSampleSize *= 2;
+            }
+
+            Bitmap bitmap = BitmapFactory.decodeResource(res, resId, options);
+            if (bitmap == null) {
+                return null;
+            } else {
+                int width = bitmap.getWidth();
+                int height = bitmap.getHeight();
+                int largest = Math.max(width, height);
+                if (largest > targetSize) {
+                    float scale = (float) targetSize / (float) largest;
+                    Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round((float) width * scale)), Math.max(1, Math.round((float) height * scale)), true);
+                    if (scaled != bitmap) {
+                        bitmap.recycle();
+                    }
+
+                    bitmap = scaled;
+                }
+
+                // Pixels map one to one to the screen, the intrinsic size is the target size
+                bitmap.setDensity(res.getDisplayMetrics().densityDpi);
+                return new BitmapDrawable(res, bitmap);
+            }
+        }
+    }
+
+    private static int byteCount(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() != null) {
+            return ((BitmapDrawable) drawable).getBitmap().getByteCount();
+        } else {
+            return Math.max(1, Math.max(0, drawable.getIntrinsicWidth()) * Math.max(0, drawable.getIntrinsicHeight()) * 4);
+        }
+    }
+}
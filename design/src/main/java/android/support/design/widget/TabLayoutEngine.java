@@ -0,0 +1,133 @@
+package android.support.design.widget;
+
+/**
+ * The tab geometry math of {@link SlidingTabStripLayout}, free of Android types so that it can be
+ * unit tested and benchmarked on a plain JVM. Every method works on primitives or on caller owned
+ * primitive arrays of tab widths and never allocates.
+ */
+final class TabLayoutEngine {
+
+    static final int NO_WIDTH = -1;
+
+    private TabLayoutEngine() {
+    }
+
+    /**
+     * Writes the left edge of tab i to offsets[i] for every i in [from, count), plus the right
+     * edge of the last tab to offsets[count], and returns that right edge. offsets[from - 1] must
+     * already be valid when from is positive. Negative widths count as 0.
+     */
+    static int prefixSums(int[] widths, int[] offsets, int from, int count, int start) {
+        int offset = from == 0 ? start : offsets[from - 1] + Math.max(0, widths[from - 1]);
+
+        for (int i = from; i < count; ++i) {
+            offsets[i] = offset;
+            offset += Math.max(0, widths[i]);
+        }
+
+        offsets[count] = offset;
+        return offset;
+    }
+
+    // The last tab whose left edge is at or before x, clamped to [0, count), -1 without tabs
+    static int findPosition(int[] offsets, int count, int x) {
+        if (count == 0) {
+            return -1;
+        } else {
+            int low = 0;
+            int high = count - 1;
+
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (offsets[mid] <= x) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            return low;
+        }
+    }
+
+    static int largestWidth(int[] widths, int count) {
+        int largest = 0;
+
+        for (int i = 0; i < count; ++i) {
+            largest = Math.max(largest, widths[i]);
+        }
+
+        return largest;
+    }
+
+    /**
+     * GRAVITY_CENTER in MODE_FIXED: every tab gets the width of the largest one if they all fit
+     * with a gutter on each side, returns that width or NO_WIDTH when they do not fit.
+     */
+    static int centeredTabWidth(int[] widths, int count, int available, int gutter) {
+        int largest = largestWidth(widths, count);
+        return largest > 0 && largest * count <= available - gutter * 2 ? largest : NO_WIDTH;
+    }
+
+    /**
+     * Overwrites the widths for MODE_FIXED and returns the offset of the first tab within the
+     * available width. With a tabWidth from centeredTabWidth the tabs are centered, with NO_WIDTH
+     * they fill the available width and the last one takes the rounding remainder.
+     */
+    static int distributeFixedWidths(int[] widths, int count, int available, int tabWidth) {
+        if (count == 0) {
+            return 0;
+        } else if (tabWidth != NO_WIDTH) {
+            for (int i = 0; i < count; ++i) {
+                widths[i] = tabWidth;
+            }
+
+            return (available - tabWidth * count) / 2;
+        } else {
+            int fillWidth = available / count;
+
+            for (int i = 0; i < count; ++i) {
+                widths[i] = fillWidth;
+            }
+
+            widths[count - 1] += available - fillWidth * count;
+            return 0;
+        }
+    }
+
+    /**
+     * The width a tab has to be measured again at, or NO_WIDTH when its natural size stands. Wider
+     * than maxWidth is cut down to it and narrower than minWidth is raised to it, the same bounds
+     * boundedTabWidth gives the flat strip.
+     */
+    static int clampedTabWidth(int measuredWidth, int minWidth, int maxWidth) {
+        if (maxWidth != 0 && measuredWidth > maxWidth) {
+            return maxWidth;
+        } else {
+            return minWidth > 0 && measuredWidth < minWidth ? minWidth : NO_WIDTH;
+        }
+    }
+
+    // A tab width as drawn by the flat strip, cut down to maxWidth when set and raised to minWidth
+    static int boundedTabWidth(int width, int minWidth, int maxWidth) {
+        return maxWidth != 0 && width > maxWidth ? maxWidth : Math.max(width, minWidth);
+    }
+
+    // One indicator edge moved from its tab towards the next one by offset
+    static float indicatorEdge(int edge, int nextEdge, float offset) {
+        return (float) edge + (float) (nextEdge - edge) * offset;
+    }
+
+    /**
+     * The x of the center of a tab moved towards the center of the next one by offset, as a
+     * ViewPager scrolling between the two reports it.
+     */
+    static float tabCenter(int left, int width, int nextWidth, float offset) {
+        return (float) left + (float) width * 0.5F + (float) (width + nextWidth) * offset * 0.5F;
+    }
+
+    // The scrollX that centers tabCenter in a viewport of viewportWidth
+    static int centeredScrollX(float tabCenter, int viewportWidth) {
+        return Math.round(tabCenter - (float) viewportWidth * 0.5F);
+    }
+}
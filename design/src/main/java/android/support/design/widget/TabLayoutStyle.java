@@ -0,0 +1,158 @@
+package android.support.design.widget;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * The {@link R.styleable#TabLayout} attributes of a {@link SlidingTabStripLayout}, resolved once.
+ * <p>
+ * Instances are immutable and shared between all the layouts that are inflated with the same
+ * theme, default style attribute and style resource, so that only the first of them pays for
+ * {@code obtainStyledAttributes} and the text color and appearance resolution. Layouts whose
+ * AttributeSet carries TabLayout attributes of its own are never cached. The cache is dropped
+ * whenever the resources configuration changes.
+ */
+final class TabLayoutStyle {
+
+    private static final WeakHashMap<Resources.Theme, HashMap<Long, TabLayoutStyle>> sCache = new WeakHashMap();
+    private static Configuration sCacheConfiguration;
+    private static int[] sSortedTabLayoutAttrs;
+
+    final int indicatorHeight;
+    final int indicatorColor;
+    final int underlineHeight;
+    final int underlineColor;
+    final int textAppearance;
+    final int selectedTextAppearance;
+    final boolean isSelectedTextBold;
+    final int paddingStart;
+    final int paddingTop;
+    final int paddingEnd;
+    final int paddingBottom;
+    final ColorStateList textColors;
+    final int minWidth;
+    final int requestedMaxWidth;
+    final int backgroundResId;
+    final int contentInsetStart;
+    final int mode;
+    final int gravity;
+    final TabTextAppearance resolvedTextAppearance;
+    final TabTextAppearance resolvedSelectedTextAppearance;
+
+    private TabLayoutStyle(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TabLayout, defStyleAttr, R.style.Widget_Design_TabLayout);
+
+        try {
+            this.indicatorHeight = a.getDimensionPixelSize(R.styleable.TabLayout_tabIndicatorHeight, 0);
+            this.indicatorColor = a.getColor(R.styleable.TabLayout_tabIndicatorColor, 0);
+            this.underlineHeight = a.getDimensionPixelSize(R.styleable.TabLayout_tabUnderlineHeight, 0);
+            this.underlineColor = a.getColor(R.styleable.TabLayout_tabUnderlineColor, 0);
+            this.textAppearance = a.getResourceId(R.styleable.TabLayout_tabTextAppearance, R.style.TextAppearance_Design_Tab);
+            this.selectedTextAppearance = a.getResourceId(R.styleable.TabLayout_tabSelectedTextAppearance, R.style.CustomTabTextAppearance_Bold);
+            this.isSelectedTextBold = a.getBoolean(R.styleable.TabLayout_tabIsSelectedTextBold, false);
+            int padding = a.getDimensionPixelSize(R.styleable.TabLayout_tabPadding, 0);
+            this.paddingStart = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingStart, padding);
+            this.paddingTop = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingTop, padding);
+            this.paddingEnd = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingEnd, padding);
+            this.paddingBottom = a.getDimensionPixelSize(R.styleable.TabLayout_tabPaddingBottom, padding);
+
+            ColorStateList appearanceColors = loadTextColorFromTextAppearance(context, this.textAppearance);
+            if (a.hasValue(R.styleable.TabLayout_tabSelectedTextColor)) {
+                int selected = a.getColor(R.styleable.TabLayout_tabSelectedTextColor, 0);
+                int defaulted = appearanceColors != null ? appearanceColors.getDefaultColor() : 0;
+                this.textColors = SlidingTabStripLayout.createColorStateList(selected, selected, defaulted);
+            } else {
+                this.textColors = appearanceColors;
+            }
+
+            this.minWidth = a.getDimensionPixelSize(R.styleable.TabLayout_tabMinWidth, 0);
+            this.requestedMaxWidth = a.getDimensionPixelSize(R.styleable.TabLayout_tabMaxWidth, 0);
+            this.backgroundResId = a.getResourceId(R.styleable.TabLayout_tabBackground, 0);
+            this.contentInsetStart = a.getDimensionPixelSize(R.styleable.TabLayout_tabContentStart, 0);
+            this.mode = a.getInt(R.styleable.TabLayout_tabMode, 1);
+            this.gravity = a.getInt(R.styleable.TabLayout_tabGravity, 0);
+        } finally {
+            a.recycle();
+        }
+
+        this.resolvedTextAppearance = TabTextAppearance.resolve(context, this.textAppearance);
+        this.resolvedSelectedTextAppearance = this.isSelectedTextBold ? TabTextAppearance.resolve(context, this.selectedTextAppearance) : null;
+    }
+
+    static TabLayoutStyle obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+        if (!isCacheable(attrs)) {
+            return new TabLayoutStyle(context, attrs, defStyleAttr);
+        } else {
+            Configuration configuration = context.getResources().getConfiguration();
+            if (sCacheConfiguration == null || !sCacheConfiguration.equals(configuration)) {
+                sCache.clear();
+                sCacheConfiguration = new Configuration(configuration);
+            }
+
+            Resources.Theme theme = context.getTheme();
+            HashMap<Long, TabLayoutStyle> styles = (HashMap) sCache.get(theme);
+            if (styles == null) {
+                styles = new HashMap();
+                sCache.put(theme, styles);
+            }
+
+            int styleResId = attrs != null ? attrs.getStyleAttribute() : 0;
+            Long key = Long.valueOf((long) defStyleAttr << 32 | (long) styleResId & 0xffffffffL);
+            TabLayoutStyle style = (TabLayoutStyle) styles.get(key);
+            if (style == null) {
+                style = new TabLayoutStyle(context, attrs, defStyleAttr);
+                styles.put(key, style);
+            }
+
+            return style;
+        }
+    }
+
+    static void clearCache() {
+        sCache.clear();
+        sCacheConfiguration = null;
+    }
+
+    // Only the theme, defStyleAttr and the style="" resource are part of the key, so inline TabLayout attributes opt out
+    private static boolean isCacheable(AttributeSet attrs) {
+        if (attrs == null) {
+            return true;
+        } else {
+            if (sSortedTabLayoutAttrs == null) {
+                sSortedTabLayoutAttrs = (int[]) R.styleable.TabLayout.clone();
+                Arrays.sort(sSortedTabLayoutAttrs);
+            }
+
+            int i = 0;
+
+            for (int count = attrs.getAttributeCount(); i < count; ++i) {
+                if (Arrays.binarySearch(sSortedTabLayoutAttrs, attrs.getAttributeNameResource(i)) >= 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static ColorStateList loadTextColorFromTextAppearance(Context context, int textAppearanceResId) {
+        TypedArray a = context.obtainStyledAttributes(textAppearanceResId, R.styleable.TextAppearance);
+
+        ColorStateList colorList;
+        try {
+            colorList = a.getColorStateList(R.styleable.TextAppearance_android_textColor);
+        } finally {
+            a.recycle();
+        }
+
+        return colorList;
+    }
+}
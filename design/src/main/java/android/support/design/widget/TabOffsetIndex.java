@@ -0,0 +1,176 @@
+package android.support.design.widget;
+
+import java.util.Arrays;
+
+/**
+ * The horizontal geometry of a row of tabs kept as primitive arrays, the width of every tab and
+ * the prefix sums of those widths. Lookups of a tab's edges are O(1) and mapping an x coordinate
+ * back to a tab is a binary search, so neither needs the tab views to exist.
+ * <p>
+ * Changing a width only marks the prefix sums dirty from that tab onwards, they are rebuilt from
+ * there on the next lookup. Tabs are assumed to be laid out back to back, starting at
+ * {@link #setStart(int)}.
+ * <p>
+ * The measured, natural, widths are kept apart from the widths the tabs are laid out at, so
+ * {@link #distributeFixedWidths(int, int, int)} can be applied again and undone without
+ * measuring any tab.
+ */
+final class TabOffsetIndex {
+
+    static final int UNKNOWN_WIDTH = -1;
+
+    private int[] mNaturalWidths = new int[0];
+    private int[] mWidths = new int[0];
+    // mOffsets[i] is the left edge of tab i, mOffsets[count] the right edge of the last tab
+    private int[] mOffsets = new int[1];
+    private int mCount;
+    private int mStart;
+    private int mDirtyFrom;
+    // MODE_FIXED state, the arguments mWidths were distributed with and the offset of the first tab
+    private boolean mDistributed;
+    private int mDistributedAvailable;
+    private int mDistributedTabWidth;
+    private int mDistributedShift;
+
+    int size() {
+        return this.mCount;
+    }
+
+    // Drops every width, all of them are UNKNOWN_WIDTH until set again
+    void reset(int count) {
+        if (this.mWidths.length < count) {
+            this.mNaturalWidths = new int[count];
+            this.mWidths = new int[count];
+            this.mOffsets = new int[count + 1];
+        }
+
+        Arrays.fill(this.mNaturalWidths, 0, count, UNKNOWN_WIDTH);
+        Arrays.fill(this.mWidths, 0, count, UNKNOWN_WIDTH);
+        this.mCount = count;
+        this.mDirtyFrom = 0;
+        this.mDistributed = false;
+        this.mDistributedShift = 0;
+    }
+
+    void setStart(int start) {
+        if (this.mStart != start) {
+            this.mStart = start;
+            this.mDirtyFrom = 0;
+        }
+
+    }
+
+    boolean isWidthKnown(int position) {
+        return this.mNaturalWidths[position] != UNKNOWN_WIDTH;
+    }
+
+    // Sets the natural width, a distribution in place is undone as it no longer matches
+    void setWidth(int position, int width) {
+        if (this.mNaturalWidths[position] != width) {
+            this.mNaturalWidths[position] = width;
+            if (this.mDistributed) {
+                this.restoreNaturalWidths();
+            } else {
+                this.mWidths[position] = width;
+                this.mDirtyFrom = Math.min(this.mDirtyFrom, position);
+            }
+        }
+
+    }
+
+    void invalidateWidth(int position) {
+        if (position >= 0 && position < this.mCount) {
+            this.setWidth(position, UNKNOWN_WIDTH);
+        }
+
+    }
+
+    int getWidth(int position) {
+        return position >= 0 && position < this.mCount ? Math.max(0, this.mWidths[position]) : 0;
+    }
+
+    int getLeft(int position) {
+        if (position >= 0 && position < this.mCount) {
+            this.ensureOffsets();
+            return this.mOffsets[position];
+        } else {
+            return 0;
+        }
+    }
+
+    int getRight(int position) {
+        return this.getLeft(position) + this.getWidth(position);
+    }
+
+    // The right edge of the last tab, or the start when there are none
+    int getEnd() {
+        this.ensureOffsets();
+        return this.mOffsets[this.mCount];
+    }
+
+    // See TabLayoutEngine.centeredTabWidth, from the natural widths
+    int getCenteredTabWidth(int available, int gutter) {
+        return TabLayoutEngine.centeredTabWidth(this.mNaturalWidths, this.mCount, available, gutter);
+    }
+
+    /**
+     * Lays the tabs out for MODE_FIXED, see TabLayoutEngine.distributeFixedWidths, leaving the
+     * natural widths as they are. Returns false when they already were for the same arguments.
+     */
+    boolean distributeFixedWidths(int start, int available, int tabWidth) {
+        if (this.mDistributed && this.mStart == start && this.mDistributedAvailable == available && this.mDistributedTabWidth == tabWidth) {
+            return false;
+        } else {
+            this.mStart = start;
+            this.mDistributedShift = TabLayoutEngine.distributeFixedWidths(this.mWidths, this.mCount, available, tabWidth);
+            this.mDistributedAvailable = available;
+            this.mDistributedTabWidth = tabWidth;
+            this.mDistributed = true;
+            this.mDirtyFrom = 0;
+            return true;
+        }
+    }
+
+    // Lays the tabs out at their natural widths again, returns false when they already were
+    boolean restoreNaturalWidths() {
+        if (!this.mDistributed) {
+            return false;
+        } else {
+            System.arraycopy(this.mNaturalWidths, 0, this.mWidths, 0, this.mCount);
+            this.mDistributed = false;
+            this.mDistributedShift = 0;
+            this.mDirtyFrom = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the tab whose span contains x, clamped to the first or the last tab when x lies
+     * before or after the row, or -1 when there are no tabs.
+     */
+    int findPositionAt(int x) {
+        this.ensureOffsets();
+        return TabLayoutEngine.findPosition(this.mOffsets, this.mCount, x);
+    }
+
+    // Like findPositionAt but -1 when x falls outside of every tab
+    int findPositionContaining(int x) {
+        int position = this.findPositionAt(x);
+        return position >= 0 && x >= this.mOffsets[position] && x < this.mOffsets[position + 1] ? position : -1;
+    }
+
+    /**
+     * The x of the center of the given tab moved towards the center of the next one by
+     * positionOffset, as a ViewPager scrolling between the two reports it.
+     */
+    float getCenter(int position, float positionOffset) {
+        return TabLayoutEngine.tabCenter(this.getLeft(position), this.getWidth(position), this.getWidth(position + 1), positionOffset);
+    }
+
+    private void ensureOffsets() {
+        if (this.mDirtyFrom <= this.mCount) {
+            TabLayoutEngine.prefixSums(this.mWidths, this.mOffsets, this.mDirtyFrom, this.mCount, this.mStart + this.mDistributedShift);
+            this.mDirtyFrom = Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package android.support.design.widget;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Typeface;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+/**
+ * A TextAppearance style resolved once into the values a tab title needs, so that switching a
+ * tab between its selected and unselected appearance is a paint level change instead of a
+ * {@link TextView#setTextAppearance(Context, int)} call that resolves the style again.
+ */
+final class TabTextAppearance {
+
+    final Typeface typeface;
+    final int textStyle;
+    final float textSize;
+    final ColorStateList textColor;
+    final float shadowRadius;
+    final float shadowDx;
+    final float shadowDy;
+    final int shadowColor;
+
+    private TabTextAppearance(Typeface typeface, int textStyle, float textSize, ColorStateList textColor, float shadowRadius, float shadowDx, float shadowDy, int shadowColor) {
+        this.typeface = typeface;
+        this.textStyle = textStyle;
+        this.textSize = textSize;
+        this.textColor = textColor;
+        this.shadowRadius = shadowRadius;
+        this.shadowDx = shadowDx;
+        this.shadowDy = shadowDy;
+        this.shadowColor = shadowColor;
+    }
+
+    static TabTextAppearance resolve(Context context, int textAppearanceResId) {
+        TypedArray a = context.obtainStyledAttributes(textAppearanceResId, R.styleable.SlidingTabTextAppearance);
+
+        try {
+            Typeface typeface;
+            switch (a.getInt(R.styleable.SlidingTabTextAppearance_android_typeface, -1)) {
+                case 1:
+                    typeface = Typeface.SANS_SERIF;
+                    break;
+                case 2:
+                    typeface = Typeface.SERIF;
+                    break;
+                case 3:
+                    typeface = Typeface.MONOSPACE;
+                    break;
+                default:
+                    typeface = null;
+            }
+
+            return new TabTextAppearance(typeface,
+                    a.getInt(R.styleable.SlidingTabTextAppearance_android_textStyle, 0),
+                    (float) a.getDimensionPixelSize(R.styleable.SlidingTabTextAppearance_android_textSize, 0),
+                    a.getColorStateList(R.styleable.SlidingTabTextAppearance_android_textColor),
+                    a.getFloat(R.styleable.SlidingTabTextAppearance_android_shadowRadius, 0.0F),
+                    a.getFloat(R.styleable.SlidingTabTextAppearance_android_shadowDx, 0.0F),
+                    a.getFloat(R.styleable.SlidingTabTextAppearance_android_shadowDy, 0.0F),
+                    a.getColor(R.styleable.SlidingTabTextAppearance_android_shadowColor, 0));
+        } finally {
+            a.recycle();
+        }
+    }
+
+    // Only touches the paint of the TextView, textColorOverride wins over the appearance's own text color
+    void apply(TextView textView, ColorStateList textColorOverride) {
+        textView.setTypeface(this.typeface, this.textStyle);
+        if (this.textSize > 0.0F) {
+            textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, this.textSize);
+        }
+
+        ColorStateList colors = textColorOverride != null ? textColorOverride : this.textColor;
+        if (colors != null && colors != textView.getTextColors()) {
+            textView.setTextColor(colors);
+        }
+
+        textView.setShadowLayer(this.shadowRadius, this.shadowDx, this.shadowDy, this.shadowColor);
+    }
+}
@@ -0,0 +1,107 @@
+package android.support.design.widget;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Shapes and measures tab titles on a background {@link Executor} so that the first measure pass
+ * of a tab title can use the precomputed metrics instead of measuring the text on the UI thread.
+ * Measuring the text off the UI thread also warms the shared text layout cache, so a title that
+ * still has to be laid out synchronously is cheaper as well.
+ * <p>
+ * Only single line titles are precomputed, anything else keeps using the regular TextView path.
+ */
+final class TabTextPrecomputer {
+
+    interface Callback {
+        // Called on the main thread
+        void onMetricsReady(TabTextPrecomputer.Metrics metrics);
+    }
+
+    static final class Metrics {
+        final CharSequence text;
+        final TabTextAppearance appearance;
+        final TabTextAppearance selectedAppearance;
+        final int width;
+        final int height;
+
+        Metrics(CharSequence text, TabTextAppearance appearance, TabTextAppearance selectedAppearance, int width, int height) {
+            this.text = text;
+            this.appearance = appearance;
+            this.selectedAppearance = selectedAppearance;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final Executor mExecutor;
+    private final Handler mHandler;
+
+    TabTextPrecomputer(Executor executor) {
+        this.mExecutor = executor;
+        this.mHandler = new Handler(Looper.getMainLooper());
+    }
+
+    Executor getExecutor() {
+        return this.mExecutor;
+    }
+
+    /*
+     * text is the title as set on the tab, displayText is the same title after the TextView's
+     * transformation method (textAllCaps) was applied. Titles the appearance has no text size for,
+     * or that span several lines, are skipped.
+     */
+    void precompute(final CharSequence text, final CharSequence displayText, final TabTextAppearance appearance, final TabTextAppearance selectedAppearance, final TabTextPrecomputer.Callback callback) {
+        if (!TextUtils.isEmpty(displayText) && appearance.textSize > 0.0F && TextUtils.indexOf(displayText, '\n') < 0) {
+            this.mExecutor.execute(new Runnable() {
+                public void run() {
+                    TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+                    Paint.FontMetricsInt fm = new Paint.FontMetricsInt();
+                    configurePaint(paint, appearance);
+                    float width = Layout.getDesiredWidth(displayText, paint);
+                    paint.getFontMetricsInt(fm);
+                    int height = fm.bottom - fm.top;
+                    if (selectedAppearance != null && selectedAppearance != appearance && selectedAppearance.textSize > 0.0F) {
+                        configurePaint(paint, selectedAppearance);
+                        width = Math.max(width, Layout.getDesiredWidth(displayText, paint));
+                        paint.getFontMetricsInt(fm);
+                        height = Math.max(height, fm.bottom - fm.top);
+                    }
+
+                    final TabTextPrecomputer.Metrics metrics = new TabTextPrecomputer.Metrics(text, appearance, selectedAppearance, (int) Math.ceil((double) width), height);
+                    TabTextPrecomputer.this.mHandler.post(new Runnable() {
+                        public void run() {
+                            callback.onMetricsReady(metrics);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    // Mirrors TextView.setTypeface(Typeface, int) and setTextSize() for a detached paint
+    static void configurePaint(TextPaint paint, TabTextAppearance appearance) {
+        paint.setTextSize(appearance.textSize);
+        Typeface typeface = appearance.typeface;
+        int style = appearance.textStyle;
+        if (style > 0) {
+            typeface = typeface == null ? Typeface.defaultFromStyle(style) : Typeface.create(typeface, style);
+            paint.setTypeface(typeface);
+            int need = style & ~(typeface != null ? typeface.getStyle() : 0);
+            paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+            paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25F : 0.0F);
+        } else {
+            paint.setTypeface(typeface);
+            paint.setFakeBoldText(false);
+            paint.setTextSkewX(0.0F);
+        }
+
+    }
+}
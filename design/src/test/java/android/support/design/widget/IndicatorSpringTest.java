@@ -0,0 +1,97 @@
+package android.support.design.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IndicatorSpringTest {
+    private static final float FRAME = 1.0F / 60.0F;
+
+    @Test
+    public void settlesOnTarget() throws Exception {
+        IndicatorSpring spring = new IndicatorSpring();
+        spring.snapTo(0.0F);
+        spring.setTarget(300.0F);
+        int frames = run(spring, 600);
+        assertTrue(frames < 600);
+        assertEquals(300.0F, spring.getValue(), 0.5F);
+    }
+
+    @Test
+    public void criticallyDampedDoesNotOvershoot() throws Exception {
+        IndicatorSpring spring = new IndicatorSpring(700.0F, 1.0F);
+        spring.snapTo(0.0F);
+        spring.setTarget(300.0F);
+
+        for (int i = 0; i < 120; ++i) {
+            spring.step(FRAME);
+            assertTrue(spring.getValue() <= 300.0F + 0.01F);
+        }
+    }
+
+    @Test
+    public void retargetKeepsVelocity() throws Exception {
+        IndicatorSpring spring = new IndicatorSpring();
+        spring.snapTo(0.0F);
+        spring.setTarget(300.0F);
+        for (int i = 0; i < 5; ++i) {
+            spring.step(FRAME);
+        }
+
+        float value = spring.getValue();
+        float velocity = spring.getVelocity();
+        assertTrue(velocity > 0.0F);
+        spring.setTarget(-300.0F);
+        assertEquals(value, spring.getValue(), 0.0F);
+        assertEquals(velocity, spring.getVelocity(), 0.0F);
+        // Compared to a spring at rest at the same spot, the momentum carries it further forward
+        IndicatorSpring resting = new IndicatorSpring();
+        resting.snapTo(value);
+        resting.setTarget(-300.0F);
+        spring.step(FRAME);
+        resting.step(FRAME);
+        assertTrue(spring.getValue() > resting.getValue());
+        run(spring, 600);
+        assertEquals(-300.0F, spring.getValue(), 0.5F);
+    }
+
+    @Test
+    public void longFramesStayStable() throws Exception {
+        IndicatorSpring spring = new IndicatorSpring(5000.0F, 0.5F);
+        spring.snapTo(0.0F);
+        spring.setTarget(1000.0F);
+        for (int i = 0; i < 100; ++i) {
+            spring.step(0.5F);
+            assertFalse(Float.isNaN(spring.getValue()));
+            assertTrue(Math.abs(spring.getValue()) < 3000.0F);
+        }
+
+        assertTrue(spring.isAtRest(0.5F, 8.0F));
+    }
+
+    @Test
+    public void snapToStops() throws Exception {
+        IndicatorSpring spring = new IndicatorSpring();
+        spring.setState(10.0F, 500.0F);
+        spring.snapTo(42.0F);
+        assertEquals(42.0F, spring.getTarget(), 0.0F);
+        assertEquals(0.0F, spring.getVelocity(), 0.0F);
+        assertTrue(spring.isAtRest(0.0F, 0.0F));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveStiffness() throws Exception {
+        new IndicatorSpring(0.0F, 1.0F);
+    }
+
+    private static int run(IndicatorSpring spring, int maxFrames) {
+        int frames = 0;
+
+        while (frames < maxFrames && !spring.isAtRest(0.5F, 8.0F)) {
+            spring.step(FRAME);
+            ++frames;
+        }
+
+        return frames;
+    }
+}
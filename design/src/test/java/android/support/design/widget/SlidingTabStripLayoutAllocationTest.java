@@ -0,0 +1,225 @@
+package android.support.design.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation and layout budgets for the paths that run on every frame while a ViewPager scrolls.
+ * Allocations are counted per thread through the JVM's ThreadMXBean, so the budgets cover the
+ * widget and whatever framework code it calls into.
+ * <p>
+ * The counting needs the com.sun.management extension of ThreadMXBean and the tests are skipped on
+ * JVMs without it. The zero byte budgets also hold the framework code to zero, so a Robolectric or
+ * JVM update that allocates there fails them without any change to the widget.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutAllocationTest {
+    private static final int TAB_COUNT = 30;
+    private static final int FRAMES = 64 * (TAB_COUNT - 1);
+
+    // The agreed budgets, bytes over all FRAMES frames and bytes per selection
+    private static final long SCROLL_FRAMES_BUDGET = 0L;
+    private static final long FLAT_DRAW_FRAMES_BUDGET = 0L;
+    private static final long SELECTION_BUDGET = 4096L;
+
+    private SlidingTabStripLayout mLayout;
+    private SlidingTabStripLayout.TabLayoutOnPageChangeListener mPageListener;
+    private final TabLayoutTestSupport.CountingMetrics mMetrics = new TabLayoutTestSupport.CountingMetrics();
+
+    @Before
+    public void setUp() {
+        assumeTrue(getThreadMXBean() != null && getThreadMXBean().isThreadAllocatedMemorySupported());
+        getThreadMXBean().setThreadAllocatedMemoryEnabled(true);
+        this.mLayout = TabLayoutTestSupport.newLayout(TAB_COUNT);
+        this.mPageListener = new SlidingTabStripLayout.TabLayoutOnPageChangeListener(this.mLayout);
+    }
+
+    @Test
+    public void pageScrollFramesAllocateNothing() {
+        // Warm up lazily created framework and widget state first
+        this.scrollFrames(ViewPager.SCROLL_STATE_SETTLING, 0);
+        long start = allocatedBytes();
+        this.scrollFrames(ViewPager.SCROLL_STATE_SETTLING, 1);
+        assertBudget("page scroll", SCROLL_FRAMES_BUDGET, allocatedBytes() - start);
+    }
+
+    @Test
+    public void draggingFramesAllocateNothing() {
+        this.scrollFrames(ViewPager.SCROLL_STATE_DRAGGING, 0);
+        long start = allocatedBytes();
+        this.scrollFrames(ViewPager.SCROLL_STATE_DRAGGING, 1);
+        assertBudget("dragging", SCROLL_FRAMES_BUDGET, allocatedBytes() - start);
+    }
+
+    @Test
+    public void pageScrollFramesRequestNoLayout() {
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+        this.mPageListener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            this.scrollFrame(frame, 0);
+            assertFalse("Scroll frame " + frame + " requested a layout", this.mLayout.isLayoutRequested());
+        }
+
+        assertEquals(0, this.mMetrics.stripMeasures);
+        assertEquals(0, this.mMetrics.tabViewUpdateLayouts);
+        assertEquals(0, this.mMetrics.tabViewsCreated);
+    }
+
+    @Test
+    public void flatStripDrawAllocatesNothing() {
+        this.mLayout.setFlatRenderingEnabled(true);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        View strip = this.mLayout.getChildAt(0);
+        NullCanvas canvas = new NullCanvas();
+        this.mPageListener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+
+        // Warm up, the first draw of a tab ellipsizes and caches its label
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            this.scrollFrame(frame, 0);
+            strip.draw(canvas);
+        }
+
+        this.mPageListener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+        long start = allocatedBytes();
+
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            this.scrollFrame(frame, 1);
+            strip.draw(canvas);
+        }
+
+        assertBudget("flat draw", FLAT_DRAW_FRAMES_BUDGET, allocatedBytes() - start);
+        assertTrue(canvas.draws > 0);
+    }
+
+    @Test
+    public void fixedFlatStripMeasureAndDrawAllocateNothing() {
+        this.mLayout.setTabMode(SlidingTabStripLayout.MODE_FIXED);
+        this.mLayout.setFlatRenderingEnabled(true);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        View strip = this.mLayout.getChildAt(0);
+        NullCanvas canvas = new NullCanvas();
+        // Warm up, the widths are distributed and the labels ellipsized to them once
+        TabLayoutTestSupport.forcedLayoutPass(this.mLayout);
+        strip.draw(canvas);
+        long start = allocatedBytes();
+
+        for (int i = 0; i < TAB_COUNT; ++i) {
+            TabLayoutTestSupport.forcedLayoutPass(this.mLayout);
+            strip.draw(canvas);
+        }
+
+        assertBudget("fixed flat measure and draw", FLAT_DRAW_FRAMES_BUDGET, allocatedBytes() - start);
+        assertTrue(canvas.draws > 0);
+        // The passes did measure the strip
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+        TabLayoutTestSupport.forcedLayoutPass(this.mLayout);
+        assertEquals(1, this.mMetrics.stripMeasures);
+    }
+
+    @Test
+    public void selectionsStayWithinBudgetAndKeepTabViews() {
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+
+        for (int i = 0; i < TAB_COUNT; ++i) {
+            this.mLayout.getTabAt(i).select();
+        }
+
+        long start = allocatedBytes();
+
+        for (int i = TAB_COUNT - 1; i >= 0; --i) {
+            this.mLayout.getTabAt(i).select();
+        }
+
+        assertBudget("selection", SELECTION_BUDGET * TAB_COUNT, allocatedBytes() - start);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        assertEquals(0, this.mMetrics.tabViewsCreated);
+        // The selected appearance swaps without a relayout
+        assertEquals(0, this.mMetrics.tabViewUpdateLayouts);
+    }
+
+    @Test
+    public void batchedTabUpdatesMeasureOnce() {
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+        this.mLayout.beginTabUpdate();
+
+        for (int i = 0; i < TAB_COUNT; ++i) {
+            this.mLayout.getTabAt(i).setText("Page " + i);
+        }
+
+        this.mLayout.commitTabUpdate();
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        assertEquals(1, this.mMetrics.stripMeasures);
+        assertEquals(1, this.mMetrics.stripLayouts);
+        assertEquals(0, this.mMetrics.tabViewsCreated);
+    }
+
+    // A scroll over every tab, the state change also clears what the listener remembers of the last pass
+    private void scrollFrames(int state, int pass) {
+        this.mPageListener.onPageScrollStateChanged(state);
+
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            this.scrollFrame(frame, pass);
+        }
+
+    }
+
+    // Passes are half a frame apart, so no frame repeats the pixel offset of any other and none is deduplicated
+    private void scrollFrame(int frame, int pass) {
+        int position = frame / 64;
+        float offset = ((float) (frame % 64) + 0.5F * (float) (pass % 2)) / 64.0F;
+        this.mPageListener.onPageScrolled(position, offset, (int) (offset * (float) TabLayoutTestSupport.WIDTH));
+    }
+
+
+
+    private static void assertBudget(String path, long budget, long allocated) {
+        if (allocated > budget) {
+            fail(path + " allocated " + allocated + " bytes, the budget is " + budget);
+        }
+
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    private static long allocatedBytes() {
+        return getThreadMXBean().getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+
+    // Swallows the calls the flat strip makes, so only the widget's own allocations are counted
+    private static final class NullCanvas extends Canvas {
+        int draws;
+
+        public void drawRect(RectF rect, Paint paint) {
+            ++this.draws;
+        }
+
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            ++this.draws;
+        }
+
+        public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+            ++this.draws;
+        }
+    }
+}
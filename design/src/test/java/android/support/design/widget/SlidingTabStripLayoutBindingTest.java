@@ -0,0 +1,115 @@
+package android.support.design.widget;
+
+import android.support.v4.view.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * setupWithViewPager() called again, with the same pager, another adapter or another pager, leaves a
+ * single page change listener, tab selected listener and adapter observer behind.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutBindingTest {
+    private SlidingTabStripLayout mLayout;
+    private TabLayoutTestSupport.TitleAdapter mAdapter;
+    private ViewPager mPager;
+
+    @Before
+    public void setUp() {
+        this.mLayout = TabLayoutTestSupport.newLayout(0);
+        this.mAdapter = new TabLayoutTestSupport.TitleAdapter("A", "B", "C", "D");
+        this.mPager = TabLayoutTestSupport.newPager(this.mAdapter);
+        this.mLayout.setupWithViewPager(this.mPager);
+        this.assertBound(this.mPager, this.mAdapter);
+    }
+
+    @Test
+    public void rebindSamePager() {
+        this.mLayout.setupWithViewPager(this.mPager);
+        this.mLayout.setupWithViewPager(this.mPager);
+        this.assertBound(this.mPager, this.mAdapter);
+    }
+
+    @Test
+    public void rebindAnotherAdapter() {
+        TabLayoutTestSupport.TitleAdapter adapter = new TabLayoutTestSupport.TitleAdapter("E", "F", "G", "H");
+        this.mPager.setAdapter(adapter);
+        this.mLayout.setupWithViewPager(this.mPager);
+        this.assertBound(this.mPager, adapter);
+        assertEquals(0, this.mAdapter.mObserverCount);
+        assertEquals("E", this.mLayout.getTabAt(0).getText().toString());
+    }
+
+    @Test
+    public void rebindAnotherPager() {
+        TabLayoutTestSupport.TitleAdapter adapter = new TabLayoutTestSupport.TitleAdapter("E", "F", "G", "H");
+        ViewPager pager = TabLayoutTestSupport.newPager(adapter);
+        this.mLayout.setupWithViewPager(pager);
+        this.assertBound(pager, adapter);
+        assertEquals(0, this.mAdapter.mObserverCount);
+        assertEquals(0, countPageChangeListeners(this.mPager));
+        assertEquals(0, countAttachStateListeners(this.mPager));
+
+        // Only the new pager follows the tabs
+        this.mLayout.getTabAt(2).select();
+        assertEquals(2, pager.getCurrentItem());
+        assertEquals(0, this.mPager.getCurrentItem());
+    }
+
+    @Test
+    public void rebindNullAdapterKeepsTheBinding() {
+        this.mPager.setAdapter(null);
+        try {
+            this.mLayout.setupWithViewPager(this.mPager);
+            fail("setupWithViewPager() took a pager without an adapter");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        this.mPager.setAdapter(this.mAdapter);
+        this.assertBound(this.mPager, this.mAdapter);
+    }
+
+    private void assertBound(ViewPager pager, TabLayoutTestSupport.TitleAdapter adapter) {
+        assertEquals(1, countPageChangeListeners(pager));
+        assertEquals(1, countAttachStateListeners(pager));
+        assertEquals(1, adapter.mObserverCount);
+        assertEquals(adapter.getCount(), this.mLayout.getTabCount());
+
+        // The tab selected listener drives this pager, exactly once
+        int position = (this.mLayout.getSelectedTabPosition() + 1) % adapter.getCount();
+        this.mLayout.getTabAt(position).select();
+        assertEquals(position, pager.getCurrentItem());
+        pager.setCurrentItem(0, false);
+        assertEquals(0, this.mLayout.getSelectedTabPosition());
+    }
+
+    private static int countPageChangeListeners(ViewPager pager) {
+        List<ViewPager.OnPageChangeListener> listeners = ReflectionHelpers.getField(pager, "mOnPageChangeListeners");
+        int count = 0;
+        if (listeners != null) {
+            for (ViewPager.OnPageChangeListener listener : listeners) {
+                if (listener instanceof SlidingTabStripLayout.TabLayoutOnPageChangeListener) {
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static int countAttachStateListeners(ViewPager pager) {
+        Object listenerInfo = ReflectionHelpers.getField(pager, "mListenerInfo");
+        List<?> listeners = listenerInfo != null ? (List) ReflectionHelpers.getField(listenerInfo, "mOnAttachStateChangeListeners") : null;
+        return listeners != null ? listeners.size() : 0;
+    }
+}
@@ -0,0 +1,189 @@
+package android.support.design.widget;
+
+import android.support.v4.view.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * How the tabs follow a change of the bound PagerAdapter: the Tabs and TabViews of the pages that
+ * are still there are kept, matched by page object when the adapter is a PageObjectProvider and by
+ * title otherwise, and the selection follows the pager.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutPagerSyncTest {
+    private SlidingTabStripLayout mLayout;
+    private ViewPager mPager;
+    private SlidingTabStripLayout.Tab[] mOldTabs;
+    private SlidingTabStripLayout.TabView[] mOldTabViews;
+
+    @Before
+    public void setUp() {
+        this.mLayout = TabLayoutTestSupport.newLayout(0);
+    }
+
+    @Test
+    public void insertKeepsTheOtherTabs() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+
+        adapter.setTitles("A", "X", "B", "C");
+        assertEquals(4, this.mLayout.getTabCount());
+        this.assertKept(0, 0);
+        this.assertKept(1, 2);
+        this.assertKept(2, 3);
+        this.assertNew(1, "X");
+    }
+
+    @Test
+    public void removeKeepsTheOtherTabs() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+
+        adapter.setTitles("A", "C");
+        assertEquals(2, this.mLayout.getTabCount());
+        this.assertKept(0, 0);
+        this.assertKept(2, 1);
+        assertEquals(-1, this.mOldTabs[1].getPosition());
+    }
+
+    @Test
+    public void moveFollowsTheTitle() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+
+        adapter.setTitles("C", "A", "B");
+        this.assertKept(2, 0);
+        this.assertKept(0, 1);
+        this.assertKept(1, 2);
+    }
+
+    @Test
+    public void pageObjectsFollowInsertRemoveAndMove() {
+        TabLayoutTestSupport.PageObjectAdapter adapter = this.bind(new TabLayoutTestSupport.PageObjectAdapter("p0", "A", "p1", "B", "p2", "C"));
+
+        adapter.setPages("p2", "C", "p3", "N", "p0", "A");
+        assertEquals(3, this.mLayout.getTabCount());
+        this.assertKept(2, 0);
+        this.assertKept(0, 2);
+        this.assertNew(1, "N");
+        assertEquals(-1, this.mOldTabs[1].getPosition());
+    }
+
+    @Test
+    public void pageObjectsWinOverTitles() {
+        TabLayoutTestSupport.PageObjectAdapter adapter = this.bind(new TabLayoutTestSupport.PageObjectAdapter("p0", "A", "p1", "B"));
+
+        // By title or by index the tabs would stay where they are and only be renamed
+        adapter.setPages("p1", "A", "p0", "B");
+        this.assertKept(1, 0);
+        this.assertKept(0, 1);
+        this.assertText(0, "A");
+        this.assertText(1, "B");
+    }
+
+    @Test
+    public void titleOnlyChangeRebindsInPlace() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+
+        adapter.setTitles("A", "Z", "C");
+        this.assertKept(0, 0);
+        this.assertKept(1, 1);
+        this.assertKept(2, 2);
+        this.assertText(1, "Z");
+    }
+
+    @Test
+    public void duplicateTitlesMatchInOrder() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("S", "S", "O"));
+
+        adapter.setTitles("S", "O");
+        assertEquals(2, this.mLayout.getTabCount());
+        this.assertKept(0, 0);
+        this.assertKept(2, 1);
+        assertEquals(-1, this.mOldTabs[1].getPosition());
+    }
+
+    @Test
+    public void duplicateTitlesFollowThePageObjects() {
+        TabLayoutTestSupport.PageObjectAdapter adapter = this.bind(new TabLayoutTestSupport.PageObjectAdapter("p0", "S", "p1", "S", "p2", "O"));
+
+        adapter.setPages("p1", "S", "p2", "O");
+        assertEquals(2, this.mLayout.getTabCount());
+        this.assertKept(1, 0);
+        this.assertKept(2, 1);
+        assertEquals(-1, this.mOldTabs[0].getPosition());
+    }
+
+    @Test
+    public void selectedTabIsKept() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+        this.mPager.setCurrentItem(1, false);
+        assertEquals(1, this.mLayout.getSelectedTabPosition());
+
+        adapter.setTitles("A", "B2", "C");
+        adapter.setTitles("A", "B2");
+        assertEquals(1, this.mLayout.getSelectedTabPosition());
+        assertSame(this.mOldTabs[1], this.mLayout.getTabAt(1));
+        assertTrue(this.mLayout.getTabViewAt(1).isSelected());
+        assertFalse(this.mLayout.getTabViewAt(0).isSelected());
+    }
+
+    @Test
+    public void pageSelectedBeforeTheTabsSync() {
+        TabLayoutTestSupport.TitleAdapter adapter = this.bind(new TabLayoutTestSupport.TitleAdapter("A", "B", "C"));
+
+        // The pager already moves to a page the layout has no tab for, as it does from its own adapter observer
+        adapter.mTitles.add("D");
+        adapter.mTitles.add("E");
+        this.mPager.setCurrentItem(4, false);
+        assertEquals(0, this.mLayout.getSelectedTabPosition());
+
+        adapter.notifyDataSetChanged();
+        assertEquals(5, this.mLayout.getTabCount());
+        assertEquals(4, this.mLayout.getSelectedTabPosition());
+        assertEquals(4, this.mPager.getCurrentItem());
+        this.assertKept(0, 0);
+        this.assertKept(2, 2);
+    }
+
+    private <T extends TabLayoutTestSupport.TitleAdapter> T bind(T adapter) {
+        this.mPager = TabLayoutTestSupport.newPager(adapter);
+        this.mLayout.setupWithViewPager(this.mPager);
+        int count = this.mLayout.getTabCount();
+        this.mOldTabs = new SlidingTabStripLayout.Tab[count];
+        this.mOldTabViews = new SlidingTabStripLayout.TabView[count];
+
+        for (int i = 0; i < count; ++i) {
+            this.mOldTabs[i] = this.mLayout.getTabAt(i);
+            this.mOldTabViews[i] = this.mLayout.getTabViewAt(i);
+        }
+
+        return adapter;
+    }
+
+    private void assertKept(int oldPosition, int newPosition) {
+        SlidingTabStripLayout.Tab tab = this.mLayout.getTabAt(newPosition);
+        assertSame("tab " + oldPosition, this.mOldTabs[oldPosition], tab);
+        assertEquals(newPosition, tab.getPosition());
+        assertSame("tab view " + oldPosition, this.mOldTabViews[oldPosition], this.mLayout.getTabViewAt(newPosition));
+        assertSame(tab, this.mLayout.getTabViewAt(newPosition).getTab());
+    }
+
+    private void assertNew(int position, String text) {
+        SlidingTabStripLayout.Tab tab = this.mLayout.getTabAt(position);
+        for (SlidingTabStripLayout.Tab oldTab : this.mOldTabs) {
+            assertNotSame(oldTab, tab);
+        }
+
+        this.assertText(position, text);
+    }
+
+    private void assertText(int position, String text) {
+        assertEquals(text, this.mLayout.getTabAt(position).getText().toString());
+        assertEquals(text, TabLayoutTestSupport.findText(this.mLayout.getTabViewAt(position)).getText().toString());
+    }
+}
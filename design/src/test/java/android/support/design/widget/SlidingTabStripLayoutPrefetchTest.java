@@ -0,0 +1,58 @@
+package android.support.design.widget;
+
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * The page of a pressed tab is reported to the OnPagePrefetchListener as soon as the finger goes down,
+ * once per press.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutPrefetchTest {
+    private SlidingTabStripLayout mLayout;
+    private final ArrayList<Integer> mPrefetched = new ArrayList<Integer>();
+
+    @Before
+    public void setUp() {
+        this.mLayout = TabLayoutTestSupport.newLayout(5);
+        this.mLayout.setOnPagePrefetchListener(new SlidingTabStripLayout.OnPagePrefetchListener() {
+            public void onPrefetchPage(int position) {
+                SlidingTabStripLayoutPrefetchTest.this.mPrefetched.add(position);
+            }
+        });
+    }
+
+    @Test
+    public void pressPrefetchesOnDownOnly() {
+        this.touch(3, MotionEvent.ACTION_DOWN);
+        assertEquals(1, this.mPrefetched.size());
+        assertEquals(3, this.mPrefetched.get(0).intValue());
+
+        this.touch(3, MotionEvent.ACTION_UP);
+        assertEquals(1, this.mPrefetched.size());
+    }
+
+    @Test
+    public void pressOnTheSelectedTabPrefetchesNothing() {
+        this.touch(0, MotionEvent.ACTION_DOWN);
+        this.touch(0, MotionEvent.ACTION_UP);
+        assertTrue(this.mPrefetched.isEmpty());
+    }
+
+    private void touch(int position, int action) {
+        SlidingTabStripLayout.TabView tabView = this.mLayout.getTabViewAt(position);
+        MotionEvent event = MotionEvent.obtain(0L, 0L, action, (float) (tabView.getWidth() / 2), (float) (tabView.getHeight() / 2), 0);
+        tabView.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
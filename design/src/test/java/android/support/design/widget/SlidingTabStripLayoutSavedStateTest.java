@@ -0,0 +1,105 @@
+package android.support.design.widget;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v4.view.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * The saved selection and scroll offset come back through a Parcel whether the state is restored
+ * before or after setupWithViewPager(), without moving the bound pager or creating tabs of their own.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutSavedStateTest {
+    private static final int TAB_COUNT = 30;
+    private static final int SELECTED = 12;
+
+    private Parcelable mSavedState;
+    private int mSavedScrollX;
+
+    @Before
+    public void setUp() {
+        SlidingTabStripLayout layout = TabLayoutTestSupport.newLayout(0);
+        ViewPager pager = TabLayoutTestSupport.newPager(newAdapter());
+        layout.setupWithViewPager(pager);
+        pager.setCurrentItem(SELECTED, false);
+        TabLayoutTestSupport.layoutPass(layout);
+        this.mSavedScrollX = layout.getScrollX();
+        assertTrue(this.mSavedScrollX > 0);
+        this.mSavedState = parcel(layout.onSaveInstanceState());
+    }
+
+    @Test
+    public void restoreAfterSetupWithViewPager() {
+        SlidingTabStripLayout layout = TabLayoutTestSupport.newLayout(0);
+        ViewPager pager = TabLayoutTestSupport.newPager(newAdapter());
+        layout.setupWithViewPager(pager);
+
+        layout.onRestoreInstanceState(this.mSavedState);
+        TabLayoutTestSupport.layoutPass(layout);
+        assertEquals(TAB_COUNT, layout.getTabCount());
+        assertEquals(SELECTED, layout.getSelectedTabPosition());
+        assertEquals(this.mSavedScrollX, layout.getScrollX());
+        // The selection comes back without telling the tab selected listener that drives the pager
+        assertEquals(0, pager.getCurrentItem());
+    }
+
+    @Test
+    public void restoreBeforeSetupWithViewPager() {
+        SlidingTabStripLayout layout = TabLayoutTestSupport.newLayout(0);
+        layout.onRestoreInstanceState(this.mSavedState);
+        // Held for the tabs of the pager rather than building tabs from the saved texts
+        assertEquals(0, layout.getTabCount());
+
+        // The pager restores its own page from its own saved state
+        ViewPager pager = TabLayoutTestSupport.newPager(newAdapter());
+        pager.setCurrentItem(SELECTED, false);
+        layout.setupWithViewPager(pager);
+        TabLayoutTestSupport.layoutPass(layout);
+        assertEquals(TAB_COUNT, layout.getTabCount());
+        assertEquals(SELECTED, layout.getSelectedTabPosition());
+        assertEquals(this.mSavedScrollX, layout.getScrollX());
+        assertEquals(SELECTED, pager.getCurrentItem());
+    }
+
+    @Test
+    public void pagerPageWinsOverTheRestoredSelection() {
+        SlidingTabStripLayout layout = TabLayoutTestSupport.newLayout(0);
+        layout.onRestoreInstanceState(this.mSavedState);
+        ViewPager pager = TabLayoutTestSupport.newPager(newAdapter());
+        pager.setCurrentItem(3, false);
+        layout.setupWithViewPager(pager);
+        assertEquals(3, layout.getSelectedTabPosition());
+        assertEquals(3, pager.getCurrentItem());
+    }
+
+    private static TabLayoutTestSupport.TitleAdapter newAdapter() {
+        String[] titles = new String[TAB_COUNT];
+        for (int i = 0; i < TAB_COUNT; ++i) {
+            titles[i] = "Tab " + i;
+        }
+
+        return new TabLayoutTestSupport.TitleAdapter(titles);
+    }
+
+    // Writes the state to a Parcel and reads it back, as the framework does across a process death
+    private static Parcelable parcel(Parcelable state) {
+        Parcel parcel = Parcel.obtain();
+
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return SlidingTabStripLayout.SavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package android.support.design.widget;
+
+import android.app.Activity;
+import android.support.v4.view.ViewPager;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * How tab content changes reach the TabViews: batched within a frame, held while the pager scrolls
+ * and, when the tab keeps its size, applied without a layout pass.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutTabUpdateTest {
+    private static final int TAB_COUNT = 30;
+
+    private SlidingTabStripLayout mLayout;
+    private final TabLayoutTestSupport.CountingMetrics mMetrics = new TabLayoutTestSupport.CountingMetrics();
+
+    @Before
+    public void setUp() {
+        this.mLayout = TabLayoutTestSupport.newLayout(TAB_COUNT);
+    }
+
+    @Test
+    public void sameSizeTabChangesSkipLayout() {
+        SlidingTabStripLayout.Tab tab = this.mLayout.getTabAt(3);
+        tab.setText("Inbox 9");
+        this.mLayout.flushPendingTabUpdates();
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+
+        // Three changes within a frame are applied as one update that keeps the tab's size
+        tab.setText("Inbox 8").setContentDescription("8 unread").setIcon(null);
+        assertFalse(this.mLayout.isLayoutRequested());
+        this.mLayout.flushPendingTabUpdates();
+        assertFalse(this.mLayout.isLayoutRequested());
+        assertEquals(0, this.mMetrics.tabViewUpdateLayouts);
+        assertEquals("Inbox 8", TabLayoutTestSupport.findText(this.mLayout.getTabViewAt(3)).getText().toString());
+    }
+
+    @Test
+    public void updatesAreHeldWhileThePagerScrolls() {
+        SlidingTabStripLayout.TabLayoutOnPageChangeListener listener = new SlidingTabStripLayout.TabLayoutOnPageChangeListener(this.mLayout);
+
+        listener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+        this.mLayout.getTabAt(3).setText("Inbox 7");
+        this.mLayout.flushPendingTabUpdates();
+        this.assertTabText(3, "Tab 3");
+
+        listener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_SETTLING);
+        this.mLayout.flushPendingTabUpdates();
+        this.assertTabText(3, "Tab 3");
+
+        // Released right away, without waiting for the next frame
+        listener.onPageScrollStateChanged(ViewPager.SCROLL_STATE_IDLE);
+        this.assertTabText(3, "Inbox 7");
+    }
+
+    @Test
+    public void heldUpdatesAreReleasedWhenTheLayoutDetaches() {
+        FrameLayout root = this.attachToWindow();
+        root.addView(this.mLayout);
+        new SlidingTabStripLayout.TabLayoutOnPageChangeListener(this.mLayout).onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+        this.mLayout.getTabAt(3).setText("Inbox 7");
+        this.mLayout.flushPendingTabUpdates();
+        this.assertTabText(3, "Tab 3");
+
+        root.removeView(this.mLayout);
+        this.assertTabText(3, "Inbox 7");
+    }
+
+    @Test
+    public void heldUpdatesAreReleasedWhenThePagerDetaches() {
+        String[] titles = new String[TAB_COUNT];
+        for (int i = 0; i < TAB_COUNT; ++i) {
+            titles[i] = "Tab " + i;
+        }
+
+        ViewPager pager = TabLayoutTestSupport.newPager(new TabLayoutTestSupport.TitleAdapter(titles));
+        this.mLayout.setupWithViewPager(pager);
+        FrameLayout root = this.attachToWindow();
+        root.addView(this.mLayout);
+        root.addView(pager);
+
+        // A detaching pager aborts the gesture without ever reporting SCROLL_STATE_IDLE
+        assertTrue(pager.beginFakeDrag());
+        this.mLayout.getTabAt(3).setText("Inbox 7");
+        this.mLayout.flushPendingTabUpdates();
+        this.assertTabText(3, "Tab 3");
+
+        root.removeView(pager);
+        this.assertTabText(3, "Inbox 7");
+    }
+
+    private FrameLayout attachToWindow() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        activity.setContentView(root);
+        return root;
+    }
+
+    private void assertTabText(int position, String text) {
+        assertEquals(text, TabLayoutTestSupport.findText(this.mLayout.getTabViewAt(position)).getText().toString());
+    }
+}
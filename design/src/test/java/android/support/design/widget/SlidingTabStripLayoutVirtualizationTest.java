@@ -0,0 +1,128 @@
+package android.support.design.widget;
+
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * TabView virtualization: only the visible window plus VIRTUAL_TAB_MARGIN tabs on each side are
+ * kept in the strip, and the TabViews that leave it are rebound to the tabs that enter it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class SlidingTabStripLayoutVirtualizationTest {
+    private static final int TAB_COUNT = 1000;
+
+    private SlidingTabStripLayout mLayout;
+    private ViewGroup mStrip;
+    private final TabLayoutTestSupport.CountingMetrics mMetrics = new TabLayoutTestSupport.CountingMetrics();
+
+    @Before
+    public void setUp() {
+        this.mLayout = TabLayoutTestSupport.newLayout(TAB_COUNT);
+        this.mLayout.setTabViewVirtualizationEnabled(true);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        this.mStrip = (ViewGroup) this.mLayout.getChildAt(0);
+    }
+
+    @Test
+    public void childCountStaysBoundedWhileScrolling() {
+        this.assertWindowBounded();
+
+        for (int x = 0; x < this.mStrip.getWidth(); x += TabLayoutTestSupport.WIDTH / 3) {
+            this.scrollTo(x);
+            this.assertWindowBounded();
+        }
+
+    }
+
+    @Test
+    public void scrollingRecyclesTabViews() {
+        this.mLayout.setTabStripMetrics(this.mMetrics);
+
+        for (int x = 0; x < this.mStrip.getWidth(); x += TabLayoutTestSupport.WIDTH / 3) {
+            this.scrollTo(x);
+        }
+
+        for (int x = this.mStrip.getWidth(); x >= 0; x -= TabLayoutTestSupport.WIDTH / 3) {
+            this.scrollTo(x);
+        }
+
+        // Crossing all the tabs twice only creates the few TabViews a slightly wider window needs
+        assertTrue("created " + this.mMetrics.tabViewsCreated, this.mMetrics.tabViewsCreated <= 2 * SlidingTabStripLayout.VIRTUAL_TAB_MARGIN);
+        this.assertWindowBounded();
+    }
+
+    @Test
+    public void offscreenTabsHaveNoTabView() {
+        assertNotNull(this.mLayout.getTabViewAt(0));
+        assertNull(this.mLayout.getTabViewAt(TAB_COUNT / 2));
+        assertNull(this.mLayout.getTabViewAt(TAB_COUNT - 1));
+
+        this.scrollTo(this.mStrip.getWidth());
+        assertNull(this.mLayout.getTabViewAt(0));
+        assertNotNull(this.mLayout.getTabViewAt(TAB_COUNT - 1));
+    }
+
+    @Test
+    public void reboundTabViewsKeepTheSelectedState() {
+        this.mLayout.selectTab(this.mLayout.getTabAt(1), false);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        assertTrue(this.mLayout.getTabViewAt(1).isSelected());
+
+        this.scrollTo(this.mStrip.getWidth() / 2);
+        assertNull(this.mLayout.getTabViewAt(1));
+        this.assertSelectedTabView(-1);
+
+        int position = this.mLayout.getFirstVisibleTabPosition() + 1;
+        this.mLayout.selectTab(this.mLayout.getTabAt(position), false);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        this.assertSelectedTabView(position);
+
+        // Back at the start the TabViews are rebound from the window around position, none stays selected
+        this.scrollTo(0);
+        assertFalse(this.mLayout.getTabViewAt(1).isSelected());
+        this.assertSelectedTabView(-1);
+
+        this.mLayout.setScrollPosition(position, 0.0F, false);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+        this.assertSelectedTabView(position);
+    }
+
+    private void scrollTo(int x) {
+        this.mLayout.scrollTo(x, 0);
+        TabLayoutTestSupport.layoutPass(this.mLayout);
+    }
+
+    private void assertWindowBounded() {
+        int first = this.mLayout.getFirstVisibleTabPosition();
+        int last = this.mLayout.getLastVisibleTabPosition();
+        int margin = SlidingTabStripLayout.VIRTUAL_TAB_MARGIN;
+        // One more than the visible tabs for the tab that starts right at the trailing edge
+        assertTrue("children " + this.mStrip.getChildCount(), this.mStrip.getChildCount() <= last - first + 2 + 2 * margin);
+        assertNotNull(this.mLayout.getTabViewAt(first));
+        assertNotNull(this.mLayout.getTabViewAt(last));
+        assertNull(this.mLayout.getTabViewAt(first - margin - 1));
+        assertNull(this.mLayout.getTabViewAt(last + margin + 2));
+
+        for (int i = 0; i < this.mStrip.getChildCount(); ++i) {
+            SlidingTabStripLayout.TabView tabView = (SlidingTabStripLayout.TabView) this.mStrip.getChildAt(i);
+            assertSame(tabView, this.mLayout.getTabViewAt(tabView.getTab().getPosition()));
+        }
+
+    }
+
+    private void assertSelectedTabView(int position) {
+        for (int i = 0; i < this.mStrip.getChildCount(); ++i) {
+            SlidingTabStripLayout.TabView tabView = (SlidingTabStripLayout.TabView) this.mStrip.getChildAt(i);
+            assertEquals("tab " + tabView.getTab().getPosition(), tabView.getTab().getPosition() == position, tabView.isSelected());
+        }
+
+    }
+}
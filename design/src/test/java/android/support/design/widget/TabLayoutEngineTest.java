@@ -0,0 +1,125 @@
+package android.support.design.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TabLayoutEngineTest {
+
+    @Test
+    public void prefixSumsFromStart() throws Exception {
+        int[] widths = {10, 20, -1, 30};
+        int[] offsets = new int[5];
+        assertEquals(65, TabLayoutEngine.prefixSums(widths, offsets, 0, 4, 5));
+        assertArrayEquals(new int[]{5, 15, 35, 35, 65}, offsets);
+    }
+
+    @Test
+    public void prefixSumsIncremental() throws Exception {
+        int[] widths = {10, 20, 30};
+        int[] offsets = new int[4];
+        TabLayoutEngine.prefixSums(widths, offsets, 0, 3, 0);
+        widths[1] = 25;
+        assertEquals(65, TabLayoutEngine.prefixSums(widths, offsets, 1, 3, 0));
+        assertArrayEquals(new int[]{0, 10, 35, 65}, offsets);
+    }
+
+    @Test
+    public void findPositionClampsToTheRow() throws Exception {
+        int[] offsets = {0, 10, 30, 60};
+        assertEquals(-1, TabLayoutEngine.findPosition(offsets, 0, 5));
+        assertEquals(0, TabLayoutEngine.findPosition(offsets, 3, -20));
+        assertEquals(0, TabLayoutEngine.findPosition(offsets, 3, 9));
+        assertEquals(1, TabLayoutEngine.findPosition(offsets, 3, 10));
+        assertEquals(2, TabLayoutEngine.findPosition(offsets, 3, 59));
+        assertEquals(2, TabLayoutEngine.findPosition(offsets, 3, 500));
+    }
+
+    @Test
+    public void centeredTabsUseTheLargestWidth() throws Exception {
+        int[] widths = {40, 70, 50};
+        int tabWidth = TabLayoutEngine.centeredTabWidth(widths, 3, 300, 16);
+        assertEquals(70, tabWidth);
+        assertEquals(45, TabLayoutEngine.distributeFixedWidths(widths, 3, 300, tabWidth));
+        assertArrayEquals(new int[]{70, 70, 70}, widths);
+    }
+
+    @Test
+    public void tabsThatDoNotFitCenteredFill() throws Exception {
+        int[] widths = {40, 100, 50};
+        int tabWidth = TabLayoutEngine.centeredTabWidth(widths, 3, 300, 16);
+        assertEquals(TabLayoutEngine.NO_WIDTH, tabWidth);
+        assertEquals(0, TabLayoutEngine.distributeFixedWidths(widths, 3, 302, tabWidth));
+        assertArrayEquals(new int[]{100, 100, 102}, widths);
+    }
+
+    @Test
+    public void clampedTabWidth() throws Exception {
+        assertEquals(200, TabLayoutEngine.clampedTabWidth(250, 0, 200));
+        assertEquals(TabLayoutEngine.NO_WIDTH, TabLayoutEngine.clampedTabWidth(150, 0, 200));
+        assertEquals(72, TabLayoutEngine.clampedTabWidth(50, 72, 0));
+        assertEquals(TabLayoutEngine.NO_WIDTH, TabLayoutEngine.clampedTabWidth(72, 72, 0));
+        // Tabs wider than the minimum keep their width, whatever their height
+        assertEquals(TabLayoutEngine.NO_WIDTH, TabLayoutEngine.clampedTabWidth(100, 72, 0));
+        assertEquals(TabLayoutEngine.NO_WIDTH, TabLayoutEngine.clampedTabWidth(100, 72, 200));
+        assertEquals(90, TabLayoutEngine.boundedTabWidth(50, 90, 200));
+        assertEquals(200, TabLayoutEngine.boundedTabWidth(250, 90, 200));
+    }
+
+    @Test
+    public void indicatorAndScrollFollowTheOffset() throws Exception {
+        assertEquals(100.0F, TabLayoutEngine.indicatorEdge(100, 200, 0.0F), 0.0F);
+        assertEquals(125.5F, TabLayoutEngine.indicatorEdge(100, 202, 0.25F), 0.0F);
+        // Tab at 100 of width 100, next one 200 wide, half way: 150 + 300 * 0.25
+        float center = TabLayoutEngine.tabCenter(100, 100, 200, 0.5F);
+        assertEquals(225.0F, center, 0.0F);
+        assertEquals(-315, TabLayoutEngine.centeredScrollX(center, 1080));
+    }
+
+    @Test
+    public void offsetIndexRebuildsFromTheChangedTab() throws Exception {
+        TabOffsetIndex index = new TabOffsetIndex();
+        index.reset(4);
+        index.setStart(8);
+        for (int i = 0; i < 4; ++i) {
+            index.setWidth(i, 10 * (i + 1));
+        }
+
+        assertEquals(108, index.getEnd());
+        index.setWidth(1, 5);
+        assertEquals(18, index.getLeft(1));
+        assertEquals(23, index.getLeft(2));
+        assertEquals(93, index.getEnd());
+        assertEquals(2, index.findPositionContaining(30));
+        assertEquals(-1, index.findPositionContaining(200));
+        assertEquals(3, index.findPositionAt(200));
+    }
+
+    @Test
+    public void offsetIndexDistributionKeepsNaturalWidths() throws Exception {
+        TabOffsetIndex index = new TabOffsetIndex();
+        index.reset(3);
+        index.setStart(8);
+        index.setWidth(0, 40);
+        index.setWidth(1, 70);
+        index.setWidth(2, 50);
+        assertTrue(index.distributeFixedWidths(8, 300, TabLayoutEngine.NO_WIDTH));
+        assertEquals(100, index.getWidth(0));
+        assertEquals(308, index.getEnd());
+        // Nothing has to be measured again for the next pass
+        assertTrue(index.isWidthKnown(0));
+        assertEquals(70, index.getCenteredTabWidth(300, 16));
+        assertFalse(index.distributeFixedWidths(8, 300, TabLayoutEngine.NO_WIDTH));
+        index.distributeFixedWidths(8, 300, 70);
+        assertEquals(53, index.getLeft(0));
+        assertTrue(index.restoreNaturalWidths());
+        assertEquals(40, index.getWidth(0));
+        assertEquals(168, index.getEnd());
+        index.distributeFixedWidths(8, 300, TabLayoutEngine.NO_WIDTH);
+        // A new natural width undoes the distribution until it is applied again
+        index.setWidth(1, 90);
+        assertEquals(40, index.getWidth(0));
+        assertEquals(188, index.getEnd());
+        assertTrue(index.distributeFixedWidths(8, 300, TabLayoutEngine.NO_WIDTH));
+    }
+}
@@ -0,0 +1,188 @@
+package android.support.design.widget;
+
+import android.database.DataSetObserver;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Fixtures shared by the Robolectric tests of SlidingTabStripLayout: a layout of a known size,
+ * the traversal that measures and lays it out, a TabStripMetrics listener that counts and
+ * pager adapters whose pages can be changed in place.
+ */
+final class TabLayoutTestSupport {
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 144;
+
+    private TabLayoutTestSupport() {
+    }
+
+    // A scrollable layout with tabs titled "Tab 0" to "Tab count-1", measured and laid out
+    static SlidingTabStripLayout newLayout(int tabCount) {
+        SlidingTabStripLayout layout = new SlidingTabStripLayout(new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light));
+        layout.setTabMode(SlidingTabStripLayout.MODE_SCROLLABLE);
+
+        for (int i = 0; i < tabCount; ++i) {
+            layout.addTab(layout.newTab().setText("Tab " + i));
+        }
+
+        layoutPass(layout);
+        return layout;
+    }
+
+    // A pager that is never attached, so it takes adapter changes without instantiating pages
+    static ViewPager newPager(PagerAdapter adapter) {
+        ViewPager pager = new ViewPager(RuntimeEnvironment.application);
+        pager.setAdapter(adapter);
+        return pager;
+    }
+
+    // What a traversal does, measure and lay out only when something asked for it
+    static void layoutPass(SlidingTabStripLayout layout) {
+        if (layout.isLayoutRequested()) {
+            traverse(layout);
+        }
+
+    }
+
+    // A traversal after something below the layout changed, without a layout request to track
+    static void forcedLayoutPass(SlidingTabStripLayout layout) {
+        layout.forceLayout();
+        layout.getChildAt(0).forceLayout();
+        traverse(layout);
+    }
+
+    private static void traverse(SlidingTabStripLayout layout) {
+        layout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    static TextView findText(ViewGroup tabView) {
+        for (int i = 0; i < tabView.getChildCount(); ++i) {
+            if (tabView.getChildAt(i) instanceof TextView) {
+                return (TextView) tabView.getChildAt(i);
+            }
+        }
+
+        return null;
+    }
+
+    static final class CountingMetrics implements SlidingTabStripLayout.TabStripMetrics {
+        int stripMeasures;
+        int stripLayouts;
+        int tabViewUpdateLayouts;
+        int tabViewsCreated;
+
+        public void onSectionTimed(String section, long durationNanos) {
+            if (SECTION_STRIP_MEASURE.equals(section)) {
+                ++this.stripMeasures;
+            } else if (SECTION_STRIP_LAYOUT.equals(section)) {
+                ++this.stripLayouts;
+            }
+
+        }
+
+        public void onCounter(String counter) {
+            if (COUNTER_TAB_VIEW_UPDATE_LAYOUT.equals(counter)) {
+                ++this.tabViewUpdateLayouts;
+            } else if (COUNTER_TAB_VIEW_CREATED.equals(counter)) {
+                ++this.tabViewsCreated;
+            }
+
+        }
+    }
+
+    // An adapter of titles only, its tabs can only be matched by title or by index
+    static class TitleAdapter extends PagerAdapter {
+        final ArrayList<CharSequence> mTitles = new ArrayList<CharSequence>();
+        // The ViewPager observes through setViewPagerObserver(), every registered observer is a layout's
+        int mObserverCount;
+
+        TitleAdapter(CharSequence... titles) {
+            this.mTitles.addAll(Arrays.asList(titles));
+        }
+
+        void setTitles(CharSequence... titles) {
+            this.mTitles.clear();
+            this.mTitles.addAll(Arrays.asList(titles));
+            this.notifyDataSetChanged();
+        }
+
+        public int getCount() {
+            return this.mTitles.size();
+        }
+
+        public CharSequence getPageTitle(int position) {
+            return this.mTitles.get(position);
+        }
+
+        public Object instantiateItem(ViewGroup container, int position) {
+            return this.mTitles.get(position);
+        }
+
+        public void destroyItem(ViewGroup container, int position, Object object) {
+        }
+
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        public void registerDataSetObserver(DataSetObserver observer) {
+            super.registerDataSetObserver(observer);
+            ++this.mObserverCount;
+        }
+
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            super.unregisterDataSetObserver(observer);
+            --this.mObserverCount;
+        }
+    }
+
+    // Hands out a page object per page and follows them through getItemPosition()
+    static final class PageObjectAdapter extends TitleAdapter implements SlidingTabStripLayout.PageObjectProvider {
+        final ArrayList<Object> mPages = new ArrayList<Object>();
+
+        // pages and titles alternate, page object first
+        PageObjectAdapter(Object... pagesAndTitles) {
+            this.setPagesQuietly(pagesAndTitles);
+        }
+
+        void setPages(Object... pagesAndTitles) {
+            this.setPagesQuietly(pagesAndTitles);
+            this.notifyDataSetChanged();
+        }
+
+        private void setPagesQuietly(Object[] pagesAndTitles) {
+            this.mPages.clear();
+            this.mTitles.clear();
+
+            for (int i = 0; i < pagesAndTitles.length; i += 2) {
+                this.mPages.add(pagesAndTitles[i]);
+                this.mTitles.add((CharSequence) pagesAndTitles[i + 1]);
+            }
+
+        }
+
+        public Object getPageObject(int position) {
+            return this.mPages.get(position);
+        }
+
+        public Object instantiateItem(ViewGroup container, int position) {
+            return this.mPages.get(position);
+        }
+
+        public int getItemPosition(Object object) {
+            int position = this.mPages.indexOf(object);
+            return position >= 0 ? position : POSITION_NONE;
+        }
+    }
+}